@@ -15,6 +15,7 @@ public class App extends Application {
         ProgramSelectionView selectionView = new ProgramSelectionView();
         selectionView.setPrograms(programs.getProgramStrings());
         selectionView.setOnProgramSelect(this::showMainProgramWindow);
+        selectionView.setOnResume(this::resumeMainProgramWindow);
         selectionView.show();
     }
 
@@ -23,6 +24,11 @@ public class App extends Application {
         mainView.showMainProgramWindow(selectedProgram);
     }
 
+    private void resumeMainProgramWindow(String snapshotPath) {
+        MainProgramView mainView = new MainProgramView();
+        mainView.resumeMainProgramWindow(snapshotPath);
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
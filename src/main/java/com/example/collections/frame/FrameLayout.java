@@ -0,0 +1,44 @@
+package com.example.collections.frame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Maps every variable name of a program to a dense slot index.
+// The layout is shared by all the frames (and forked frames) of one run.
+public class FrameLayout {
+    private final Map<String, Integer> slots;
+    private final List<String> names;
+
+    public FrameLayout() {
+        slots = new ConcurrentHashMap<>();
+        names = new ArrayList<>();
+    }
+
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    // returns the slot of the name, assigning the next free one if it has none
+    public int resolve(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null) return slot;
+        synchronized (this) {
+            slot = slots.get(name);
+            if (slot == null) {
+                slot = names.size();
+                names.add(name);
+                slots.put(name, slot);
+            }
+            return slot;
+        }
+    }
+
+    public synchronized String nameOf(int slot) { return names.get(slot); }
+    public synchronized int size() { return names.size(); }
+
+    @Override
+    public synchronized String toString() { return names.toString(); }
+}
@@ -0,0 +1,65 @@
+package com.example.collections.frame;
+
+import com.example.collections.dictionary.MyIDictionary;
+
+// A variable reference resolved to a slot of a FrameLayout.
+// Tables that are not frames of the same layout fall back to the name.
+// A program tree is type checked for one run (runs check a copy of the example), but the
+// layout and the slot are published together, so a tree checked again while it runs is
+// never seen with the slot of one layout and the other layout.
+public class FrameSlot {
+    private final String name;
+    private volatile Binding binding;
+
+    private static final class Binding {
+        final FrameLayout layout;
+        final int slot;
+
+        Binding(FrameLayout layout, int slot) {
+            this.layout = layout;
+            this.slot = slot;
+        }
+    }
+
+    public FrameSlot(String name) {
+        this.name = name;
+    }
+
+    public FrameSlot(String name, FrameLayout layout) {
+        this.name = name;
+        this.binding = new Binding(layout, layout.resolve(name));
+    }
+
+    public String getName() { return name; }
+    public int getSlot() {
+        Binding b = binding;
+        return b == null ? -1 : b.slot;
+    }
+
+    // called by typeCheck with the type environment of the program
+    public void resolve(MyIDictionary<String, ?> typeEnv) {
+        if (typeEnv instanceof MyIFrame<?> frame) {
+            binding = new Binding(frame.getLayout(), frame.getLayout().resolve(name));
+        }
+    }
+
+    public <V> V get(MyIDictionary<String, V> table) {
+        Binding b = binding;
+        if (b != null && table instanceof MyIFrame<V> frame && frame.getLayout() == b.layout) {
+            return frame.getSlot(b.slot);
+        }
+        return table.get(name);
+    }
+
+    public <V> void set(MyIDictionary<String, V> table, V value) {
+        Binding b = binding;
+        if (b != null && table instanceof MyIFrame<V> frame && frame.getLayout() == b.layout) {
+            frame.putSlot(b.slot, value);
+            return;
+        }
+        table.put(name, value);
+    }
+
+    @Override
+    public String toString() { return name; }
+}
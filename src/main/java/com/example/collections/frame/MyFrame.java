@@ -0,0 +1,159 @@
+package com.example.collections.frame;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.example.collections.dictionary.MyIDictionary;
+
+// Copy-on-write: deepCopy (a fork) shares the slots with the copy, and whichever frame
+// writes first takes its own copy of them. A program forking in a loop copies nothing
+// for the forks it makes between two writes.
+public class MyFrame<V> implements MyIFrame<V> {
+    private final FrameLayout layout;
+    // a null slot is a variable that is not declared (yet) in this frame
+    private Object[] slots;
+    // set while the slots may be shared with a copy of this frame, they are never written then
+    private boolean shared;
+
+    public MyFrame(FrameLayout layout) {
+        this.layout = layout;
+        slots = new Object[layout.size()];
+    }
+
+    private MyFrame(FrameLayout layout, Object[] slots) {
+        this.layout = layout;
+        this.slots = slots;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getSlot(int slot) {
+        return slot < slots.length ? (V) slots[slot] : null;
+    }
+
+    @Override
+    public void putSlot(int slot, V value) {
+        if (slot >= slots.length) {
+            Object[] grown = new Object[Math.max(slot + 1, layout.size())];
+            System.arraycopy(slots, 0, grown, 0, slots.length);
+            slots = grown;
+            shared = false;
+        } else if (shared) {
+            unshare();
+        }
+        slots[slot] = value;
+    }
+
+    private void unshare() {
+        slots = slots.clone();
+        shared = false;
+    }
+
+    @Override
+    public FrameLayout getLayout() { return layout; }
+
+    @Override
+    public V get(String key) {
+        int slot = layout.slotOf(key);
+        return slot < 0 ? null : getSlot(slot);
+    }
+
+    @Override
+    public V put(String key, V value) {
+        int slot = layout.resolve(key);
+        V old = getSlot(slot);
+        putSlot(slot, value);
+        return old;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Object value : slots) {
+            if (value != null) size++;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public void remove(String key) {
+        int slot = layout.slotOf(key);
+        if (slot < 0 || slot >= slots.length) return;
+        if (shared) unshare();
+        slots[slot] = null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<V> values() {
+        List<V> values = new ArrayList<>();
+        for (Object value : slots) {
+            if (value != null) values.add((V) value);
+        }
+        return values;
+    }
+
+    @Override
+    public boolean containsValue(V value) {
+        return values().contains(value);
+    }
+
+    @Override
+    public String getKey(V value) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && slots[i].equals(value)) return layout.nameOf(i);
+        }
+        return null;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return toMap().keySet();
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return toMap().entrySet();
+    }
+
+    @Override
+    public void setContent(Map<String, V> map) {
+        slots = new Object[layout.size()];
+        shared = false;
+        for (Map.Entry<String, V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public MyIDictionary<String, V> deepCopy() {
+        shared = true;
+        MyFrame<V> copy = new MyFrame<>(layout, slots);
+        copy.shared = true;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    // name-keyed view in slot order, used by the GUI and the logs
+    @SuppressWarnings("unchecked")
+    private Map<String, V> toMap() {
+        Map<String, V> map = new LinkedHashMap<>();
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null) map.put(layout.nameOf(i), (V) slots[i]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.collections.frame;
+
+import com.example.collections.dictionary.MyIDictionary;
+
+// Symbol table stored as an array indexed by the slots of a FrameLayout.
+// Name-keyed access is still available through the dictionary methods.
+public interface MyIFrame<V> extends MyIDictionary<String, V> {
+    V getSlot(int slot);
+    void putSlot(int slot, V value);
+    FrameLayout getLayout();
+}
@@ -0,0 +1,80 @@
+package com.example.collections.heap;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hands out the addresses of one heap. Addresses freed by the collector are reused before
+// new ones are taken from the top, so the address range stays as small as the live heap
+// allows. Safe to call from the threads of all the programs sharing the heap: a fresh
+// address is a single atomic increment, the free list is only locked while it has entries.
+public class AddressAllocator {
+    // the highest address handed out so far, addresses start at 1
+    private final AtomicInteger top = new AtomicInteger();
+    private int[] free = new int[16];
+    private volatile int freeCount;
+
+    public int allocate() {
+        if (freeCount > 0) {
+            synchronized (this) {
+                if (freeCount > 0) return free[--freeCount];
+            }
+        }
+        return top.incrementAndGet();
+    }
+
+    // the address must not be referenced anymore, it is handed out again by allocate
+    public synchronized void free(int address) {
+        if (freeCount == free.length) free = Arrays.copyOf(free, free.length * 2);
+        free[freeCount++] = address;
+    }
+
+    // Fills the whole block for an AllocationBuffer: freed addresses first, the rest with one
+    // range taken from the top in a single atomic step.
+    public void refill(int[] block) {
+        int n = 0;
+        if (freeCount > 0) {
+            synchronized (this) {
+                n = Math.min(freeCount, block.length);
+                freeCount -= n;
+                System.arraycopy(free, freeCount, block, 0, n);
+            }
+        }
+        if (n == block.length) return;
+        int address = top.getAndAdd(block.length - n);
+        while (n < block.length) { block[n++] = ++address; }
+    }
+
+    // the addresses in block from start (inclusive) to end (exclusive), like free(int)
+    public synchronized void free(int[] block, int start, int end) {
+        int n = end - start;
+        if (freeCount + n > free.length) free = Arrays.copyOf(free, Math.max(free.length * 2, freeCount + n));
+        System.arraycopy(block, start, free, freeCount, n);
+        freeCount += n;
+    }
+
+    // every address handed out so far is at most this one
+    public int getHighestAddress() {
+        return top.get();
+    }
+
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    // after the content of a heap was replaced: new addresses start above the highest one in use.
+    // Only for a heap no program allocates from yet, blocks handed out before are not taken back.
+    public synchronized void reset(Iterable<?> addressesInUse) {
+        int highest = 0;
+        for (Object address : addressesInUse) { highest = Math.max(highest, (Integer) address); }
+        top.set(highest);
+        freeCount = 0;
+    }
+
+    public synchronized AddressAllocator copy() {
+        AddressAllocator copy = new AddressAllocator();
+        copy.top.set(top.get());
+        copy.free = Arrays.copyOf(free, free.length);
+        copy.freeCount = freeCount;
+        return copy;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.collections.heap;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyFrame;
+import com.example.controller.Controller;
+import com.example.controller.WorkStealingScheduler;
+import com.example.model.PrgState;
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.enums.ArithOperation;
+import com.example.model.enums.CompareOperation;
+import com.example.model.expressions.ArithExp;
+import com.example.model.expressions.CompareExp;
+import com.example.model.expressions.Exp;
+import com.example.model.expressions.ValueExp;
+import com.example.model.expressions.VarExp;
+import com.example.model.statements.AssignStmt;
+import com.example.model.statements.CompoundStmt;
+import com.example.model.statements.ForkStmt;
+import com.example.model.statements.IStmt;
+import com.example.model.statements.VarDeclStmt;
+import com.example.model.statements.WhileStmt;
+import com.example.model.statements.heap.NewHeapStmt;
+import com.example.model.types.IntType;
+import com.example.model.types.RefType;
+import com.example.model.values.IntValue;
+import com.example.repository.Repository;
+
+// Measures what taking heap addresses costs at 1, 4 and 16 threads. allocator has every thread
+// take 2M addresses from one AddressAllocator, straight from it and then through an allocation
+// buffer of its own. fork runs the bytecode of a program that forks programs which each run
+// new() in a loop, on the work stealing scheduler. Prints the last of a few rounds, the ones
+// before warm up the JIT.
+//
+//   AllocBench allocator
+//   AllocBench fork [programs] [allocations]   256 programs of 4000 new() by default
+public class AllocBench {
+    private static final int[] THREADS = {1, 4, 16};
+    private static final int ROUNDS = 3;
+    private static final int ADDRESSES_PER_THREAD = 2_000_000;
+
+    public static void main(String[] args) throws Exception {
+        String kind = args.length > 0 ? args[0] : "allocator";
+        switch (kind) {
+            case "allocator" -> allocator();
+            case "fork" -> fork(args.length > 1 ? Integer.parseInt(args[1]) : 256, args.length > 2 ? Integer.parseInt(args[2]) : 4000);
+            default -> throw new IllegalArgumentException("Unknown benchmark " + kind);
+        }
+        System.exit(0);
+    }
+
+    private static void allocator() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int threads : THREADS) {
+                for (boolean buffered : new boolean[] {false, true}) {
+                    AddressAllocator allocator = new AddressAllocator();
+                    // some freed addresses, so the free list is taken too
+                    for (int i = 0; i < 1000; i++) { allocator.free(allocator.allocate()); }
+                    ExecutorService pool = Executors.newFixedThreadPool(threads);
+                    CountDownLatch go = new CountDownLatch(1);
+                    List<Future<Long>> sums = new ArrayList<>();
+                    for (int t = 0; t < threads; t++) {
+                        sums.add(pool.submit(() -> {
+                            AllocationBuffer buffer = new AllocationBuffer();
+                            go.await();
+                            long sum = 0;
+                            for (int i = 0; i < ADDRESSES_PER_THREAD; i++) {
+                                sum += buffered ? buffer.allocate(allocator) : allocator.allocate();
+                            }
+                            return sum;
+                        }));
+                    }
+                    long start = System.nanoTime();
+                    go.countDown();
+                    try {
+                        for (Future<Long> sum : sums) { sum.get(); }
+                    } finally {
+                        pool.shutdown();
+                    }
+                    long time = System.nanoTime() - start;
+                    if (round == ROUNDS - 1) {
+                        System.out.printf("threads=%2d %-8s %6.1f M alloc/s%n", threads, buffered ? "buffer" : "shared",
+                                threads * (double) ADDRESSES_PER_THREAD / time * 1000);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void fork(int programs, int allocations) throws Exception {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int threads : THREADS) {
+                    IStmt prg = program(programs, allocations);
+                    prg.typeCheck(new MyFrame<>(new FrameLayout()));
+                    Repository repo = new Repository("");
+                    PrgState state = new PrgState(BytecodeCompiler.compile(prg));
+                    repo.addProgram(state);
+                    Controller controller = new Controller(repo);
+                    controller.setScheduler(new WorkStealingScheduler(controller, threads, 1000));
+                    long start = System.nanoTime();
+                    controller.executeAllSteps();
+                    long time = System.nanoTime() - start;
+                    if (round == ROUNDS - 1) {
+                        console.printf("threads=%2d %6.2f M new/s  (%d programs, highest address %d)%n", threads,
+                                (double) programs * allocations / time * 1000, programs, state.getHeap().getAllocator().getHighestAddress());
+                    }
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    // v = programs; while (v > 0) { fork(Ref int a; int i = allocations; while (i > 0) { new(a, i); i = i - 1 }); v = v - 1 }
+    private static IStmt program(int programs, int allocations) {
+        IStmt child = new CompoundStmt(new VarDeclStmt("a", new RefType(new IntType())),
+                new CompoundStmt(new VarDeclStmt("i", new IntType()),
+                new CompoundStmt(new AssignStmt("i", constant(allocations)),
+                new WhileStmt(new CompareExp(var("i"), constant(0), CompareOperation.GREATER),
+                        new CompoundStmt(new NewHeapStmt("a", var("i")), new AssignStmt("i", new ArithExp(var("i"), constant(1), ArithOperation.SUB)))))));
+        return new CompoundStmt(new VarDeclStmt("v", new IntType()),
+                new CompoundStmt(new AssignStmt("v", constant(programs)),
+                new WhileStmt(new CompareExp(var("v"), constant(0), CompareOperation.GREATER),
+                        new CompoundStmt(new ForkStmt(child), new AssignStmt("v", new ArithExp(var("v"), constant(1), ArithOperation.SUB))))));
+    }
+
+    private static Exp var(String name) { return new VarExp(name); }
+    private static Exp constant(int value) { return new ValueExp(new IntValue(value)); }
+}
@@ -0,0 +1,63 @@
+package com.example.collections.heap;
+
+// Addresses reserved by one program from the allocator of its heap. The program hands them
+// out to its own new() calls without any synchronization and only goes back to the shared
+// allocator once the block is used up, so forked programs allocating at the same time
+// meet there once per block instead of once per cell.
+public class AllocationBuffer {
+    private final int size;
+    // taken on the first new(), most forked programs never allocate
+    private int[] block;
+    private int next;
+    private int count;
+    // the allocator the block came from, a program that moves to another heap drops it
+    private AddressAllocator source;
+
+    public static final int DEFAULT_SIZE = 64;
+
+    public AllocationBuffer() {
+        this(DEFAULT_SIZE);
+    }
+
+    public AllocationBuffer(int size) {
+        if (size < 1) throw new IllegalArgumentException("Buffer size must be at least 1");
+        this.size = size;
+    }
+
+    public int allocate(AddressAllocator allocator) {
+        if (allocator != source) {
+            release();
+            source = allocator;
+        }
+        if (next == count) {
+            if (block == null) block = new int[size];
+            allocator.refill(block);
+            next = 0;
+            count = block.length;
+        }
+        return block[next++];
+    }
+
+    // gives the addresses not handed out yet back to the allocator
+    public void release() {
+        if (source != null && next < count) source.free(block, next, count);
+        next = count = 0;
+    }
+
+    // The same addresses still to hand out, taken from allocator: a copy of the allocator they
+    // came from, made at the same time, which counts them as handed out already.
+    public AllocationBuffer copy(AddressAllocator allocator) {
+        AllocationBuffer copy = new AllocationBuffer(size);
+        if (next < count) {
+            copy.block = block.clone();
+            copy.next = next;
+            copy.count = count;
+            copy.source = allocator;
+        }
+        return copy;
+    }
+
+    public int remaining() {
+        return count - next;
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.collections.heap;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.example.model.exceptions.InvalidAddressException;
+import com.example.model.exceptions.MyException;
+
+// Heap that can be collected by a background thread while the programs keep running.
+// Marking works on the snapshot of the heap taken when it starts: put is the write barrier,
+// it shades the value a cell loses and marks the cells created during the collection, so
+// nothing reachable at the start (or allocated since) is swept. An unmarked cell can't
+// become reachable again, so the sweep runs in the background too.
+public class ConcurrentMarkingHeap<K, V> implements MyIHeap<K, V> {
+    private final ConcurrentHashMap<K, V> cells;
+    // the address a value refers to, null for values that are not references
+    private final Function<V, K> referenceOf;
+    private final AddressAllocator allocator;
+    private final AtomicLong allocations = new AtomicLong();
+    private volatile boolean collecting;
+    private volatile Set<K> marked;
+    private final Queue<K> grey;
+
+    public ConcurrentMarkingHeap(Function<V, K> referenceOf) {
+        this(referenceOf, new AddressAllocator());
+    }
+
+    private ConcurrentMarkingHeap(Function<V, K> referenceOf, AddressAllocator allocator) {
+        this.cells = new ConcurrentHashMap<>();
+        this.referenceOf = referenceOf;
+        this.allocator = allocator;
+        this.marked = ConcurrentHashMap.newKeySet();
+        this.grey = new ConcurrentLinkedQueue<>();
+    }
+
+    public boolean isCollecting() { return collecting; }
+
+    // the programs have to be stopped until the roots are shaded
+    public void startMarking() {
+        marked = ConcurrentHashMap.newKeySet();
+        grey.clear();
+        collecting = true;
+    }
+
+    public void shade(V value) {
+        if (value == null) return;
+        K address = referenceOf.apply(value);
+        if (address != null && marked.add(address)) grey.add(address);
+    }
+
+    // runs on the marking thread, concurrently with the programs
+    public void drain() {
+        K address;
+        while ((address = grey.poll()) != null) { shade(cells.get(address)); }
+    }
+
+    // the programs have to be stopped: marks what the barrier shaded since the marking
+    // thread finished, after that every unmarked cell is garbage
+    public void finishMarking() {
+        drain();
+    }
+
+    // runs on the collector thread, concurrently with the programs. Returns the number of cells freed.
+    public int sweep() {
+        int freed = 0;
+        for (K address : cells.keySet()) {
+            if (!marked.contains(address) && cells.remove(address) != null) {
+                allocator.free((Integer) address);
+                freed++;
+            }
+        }
+        return freed;
+    }
+
+    public void endCollection() {
+        collecting = false;
+    }
+
+    @Override
+    public V get(K key) {
+        return cells.get(key);
+    }
+
+    @Override
+    public V getOrFail(K key) throws MyException {
+        V value = cells.get(key);
+        if (value == null) { throw new InvalidAddressException("Address " + key + " is not defined in the heap"); }
+        return value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        // the cell is marked before it is stored, otherwise the sweeper could see it unmarked
+        // and free it. An existing cell that gets marked here was reachable anyway.
+        boolean marking = collecting;
+        if (marking) marked.add(key);
+        V old = cells.put(key, value);
+        if (marking) shade(old);
+        return old;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        V old = cells.replace(key, value);
+        if (collecting) shade(old);
+        return old;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public K getNextFreeAddress() {
+        return (K) Integer.valueOf(allocator.allocate());
+    }
+
+    @Override
+    public AddressAllocator getAllocator() {
+        return allocator;
+    }
+
+    @Override
+    public int size() {
+        return cells.size();
+    }
+
+    @Override
+    public String toString() {
+        return cells.toString();
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return cells.containsKey(key);
+    }
+
+    @Override
+    public void remove(K key) {
+        if (cells.remove(key) != null) allocator.free((Integer) key);
+    }
+
+    @Override
+    public int retainAll(Collection<K> keys) {
+        int freed = 0;
+        for (K address : cells.keySet()) {
+            if (!keys.contains(address) && cells.remove(address) != null) {
+                allocator.free((Integer) address);
+                freed++;
+            }
+        }
+        return freed;
+    }
+
+    @Override
+    public Map<K, V> getContent() {
+        return cells;
+    }
+
+    @Override
+    public void setContent(Map<K, V> map) {
+        cells.clear();
+        cells.putAll(map);
+        allocator.reset(map.keySet());
+    }
+
+    @Override
+    public MyIHeap<K, V> clone() {
+        ConcurrentMarkingHeap<K, V> newHeap = new ConcurrentMarkingHeap<>(referenceOf, allocator.copy());
+        newHeap.cells.putAll(cells);
+        return newHeap;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return cells.entrySet();
+    }
+
+    @Override
+    public void recordAllocation() {
+        allocations.incrementAndGet();
+    }
+
+    @Override
+    public long getAllocationCount() {
+        return allocations.get();
+    }
+
+    @Override
+    public void recordWrite(K key) {}
+}
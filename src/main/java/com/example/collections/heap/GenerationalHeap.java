@@ -0,0 +1,177 @@
+package com.example.collections.heap;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.model.exceptions.InvalidAddressException;
+import com.example.model.exceptions.MyException;
+
+// Heap split in a young region, where new() puts every cell, and an old region for the
+// cells that survived a minor collection. A minor collection only looks at the young
+// region, so the writes into old cells are remembered: they are the only way an old cell
+// can point to a young one. Both regions are striped open addressing tables keyed by the
+// int address.
+public class GenerationalHeap<V> implements MyIHeap<Integer, V> {
+    private StripedHeap<V> young;
+    private StripedHeap<V> old;
+    // old cells written since the last minor collection, by any of the program threads
+    private final Set<Integer> remembered;
+    // shared by both regions, a region frees the addresses of the cells it drops
+    private AddressAllocator allocator;
+    private final AtomicLong allocations = new AtomicLong();
+    private int oldSizeAtLastMajor;
+
+    // the old region is collected once it has this many cells and doubled since the last time
+    public static final int MAJOR_THRESHOLD = 256;
+
+    public GenerationalHeap() {
+        allocator = new AddressAllocator();
+        young = new StripedHeap<>(StripedHeap.DEFAULT_STRIPES, allocator);
+        old = new StripedHeap<>(StripedHeap.DEFAULT_STRIPES, allocator);
+        remembered = ConcurrentHashMap.newKeySet();
+    }
+
+    public boolean isYoung(int key) { return young.containsKey(key); }
+    public int youngSize() { return young.size(); }
+    public int oldSize() { return old.size(); }
+    public Set<Integer> getRemembered() { return remembered; }
+
+    public boolean needsMajorCollection() {
+        return old.size() >= Math.max(MAJOR_THRESHOLD, 2 * oldSizeAtLastMajor);
+    }
+
+    // End of a minor collection: the marked young cells move to the old region, the rest
+    // are dropped. The young region is empty afterwards, so nothing has to be remembered.
+    public int promote(Set<Integer> survivors) {
+        int before = old.size();
+        young.forEach((address, value) -> {
+            if (survivors.contains(address)) old.put(address, value);
+            else allocator.free(address);
+        });
+        int freed = young.size() - (old.size() - before);
+        young = new StripedHeap<>(StripedHeap.DEFAULT_STRIPES, allocator);
+        remembered.clear();
+        return freed;
+    }
+
+    // End of a major collection: only the marked cells of both regions are kept.
+    @Override
+    public int retainAll(Collection<Integer> marked) {
+        int freed = young.retainAll(marked) + old.retainAll(marked);
+        remembered.retainAll(marked);
+        oldSizeAtLastMajor = old.size();
+        return freed;
+    }
+
+    @Override
+    public V get(Integer key) {
+        int address = key;
+        V v = young.get(address);
+        return v != null ? v : old.get(address);
+    }
+
+    @Override
+    public V getOrFail(Integer key) throws MyException {
+        V v = get(key);
+        if (v == null) { throw new InvalidAddressException("Address " + key + " is not defined in the heap"); }
+        return v;
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        int address = key;
+        V v = old.replace(address, value);
+        return v != null ? v : young.put(address, value);
+    }
+
+    @Override
+    public V replace(Integer key, V value) {
+        int address = key;
+        V v = young.replace(address, value);
+        return v != null ? v : old.replace(address, value);
+    }
+
+    @Override
+    public void recordWrite(Integer key) {
+        if (old.containsKey(key.intValue())) remembered.add(key);
+    }
+
+    @Override
+    public Integer getNextFreeAddress() {
+        return allocator.allocate();
+    }
+
+    @Override
+    public AddressAllocator getAllocator() {
+        return allocator;
+    }
+
+    @Override
+    public int size() {
+        return young.size() + old.size();
+    }
+
+    @Override
+    public String toString() {
+        return getContent().toString();
+    }
+
+    @Override
+    public boolean containsKey(Integer key) {
+        int address = key;
+        return young.containsKey(address) || old.containsKey(address);
+    }
+
+    @Override
+    public void remove(Integer key) {
+        int address = key;
+        if (young.remove(address) == null) old.remove(address);
+        remembered.remove(key);
+    }
+
+    // a copy of both regions, changing it doesn't change the heap
+    @Override
+    public Map<Integer, V> getContent() {
+        Map<Integer, V> content = old.getContent();
+        young.forEach(content::put);
+        return content;
+    }
+
+    // the cells are all treated as young, the next minor collection sorts them out
+    @Override
+    public void setContent(Map<Integer, V> map) {
+        young = new StripedHeap<>(StripedHeap.DEFAULT_STRIPES, allocator);
+        young.setContent(map);
+        old = new StripedHeap<>(StripedHeap.DEFAULT_STRIPES, allocator);
+        remembered.clear();
+    }
+
+    @Override
+    public MyIHeap<Integer, V> clone() {
+        GenerationalHeap<V> newHeap = new GenerationalHeap<>();
+        newHeap.allocator = allocator.copy();
+        newHeap.young = young.copy(newHeap.allocator);
+        newHeap.old = old.copy(newHeap.allocator);
+        newHeap.remembered.addAll(remembered);
+        newHeap.oldSizeAtLastMajor = oldSizeAtLastMajor;
+        return newHeap;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, V>> entrySet() {
+        return getContent().entrySet();
+    }
+
+    @Override
+    public void recordAllocation() {
+        allocations.incrementAndGet();
+    }
+
+    @Override
+    public long getAllocationCount() {
+        return allocations.get();
+    }
+}
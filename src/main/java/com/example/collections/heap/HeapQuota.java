@@ -0,0 +1,109 @@
+package com.example.collections.heap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.model.exceptions.HeapLimitExceededException;
+import com.example.model.values.StringValue;
+import com.example.model.values.Value;
+
+// Budget of cells and bytes for the heap of one interpreter run, shared by all its programs.
+// new() reserves its cell here before it takes an address. When the budget is used up the
+// program asks for a collection and runs the statement again after it; only if the heap is
+// still full after that collection does new() fail, with a HeapLimitExceededException.
+// Bytes are an estimate of what the cells cost the JVM, not a measure of it.
+public class HeapQuota {
+    private final long maxCells;
+    private final long maxBytes;
+    private final AtomicLong cells = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private volatile boolean collectionRequested;
+    // a program waiting for a collection compares this count with the one it asked at
+    private volatile long forcedCollections;
+    // usage right after the last requested collection, before the programs allocate again
+    private volatile long cellsAfterCollection;
+    private volatile long bytesAfterCollection;
+
+    public static final long UNLIMITED = Long.MAX_VALUE;
+    // the slot of the cell in the table and the value object
+    public static final int CELL_BYTES = 32;
+    private static final int STRING_BYTES = 40;
+
+    public HeapQuota(long maxCells, long maxBytes) {
+        if (maxCells < 1) throw new IllegalArgumentException("Cell limit must be at least 1");
+        if (maxBytes < CELL_BYTES) throw new IllegalArgumentException("Byte limit must be at least " + CELL_BYTES);
+        this.maxCells = maxCells;
+        this.maxBytes = maxBytes;
+    }
+
+    public static long estimateBytes(Value value) {
+        if (value instanceof StringValue) return CELL_BYTES + STRING_BYTES + 2L * ((StringValue) value).getValue().length();
+        return CELL_BYTES;
+    }
+
+    // Takes room for a new cell holding value. Returns false, without taking anything, if the
+    // cell doesn't fit in the budget.
+    public boolean tryReserve(Value value) {
+        long size = estimateBytes(value);
+        long usedCells = cells.incrementAndGet();
+        long usedBytes = bytes.addAndGet(size);
+        if (usedCells <= maxCells && usedBytes <= maxBytes) return true;
+        cells.decrementAndGet();
+        bytes.addAndGet(-size);
+        return false;
+    }
+
+    // the schedulers collect at their next safe point, before any other program runs a step
+    public void requestCollection() { collectionRequested = true; }
+    public boolean isCollectionRequested() { return collectionRequested; }
+
+    // After a collection that wasn't asked for: the cells are counted again, and the bytes are
+    // scaled down with them so the collection doesn't have to visit the survivors.
+    public void collected(MyIHeap<Integer, Value> heap) {
+        long before = cells.get();
+        long after = heap.size();
+        if (before > 0) bytes.set(bytes.get() * after / before);
+        cells.set(after);
+    }
+
+    // After the collection asked by requestCollection: the survivors are counted exactly, this
+    // is the usage a waiting program decides to fail on.
+    public void collectedOnRequest(MyIHeap<Integer, Value> heap) {
+        count(heap);
+        cellsAfterCollection = cells.get();
+        bytesAfterCollection = bytes.get();
+        collectionRequested = false;
+        forcedCollections++;
+    }
+
+    // False if the heap was too full for the value even right after the last requested
+    // collection. A program that finds the budget used up again because the others allocated
+    // first waits for one more collection instead of failing.
+    public boolean fitAfterCollection(Value value) {
+        return cellsAfterCollection < maxCells && bytesAfterCollection + estimateBytes(value) <= maxBytes;
+    }
+
+    // usage of the cells already in the heap, visits all of them
+    public void count(MyIHeap<Integer, Value> heap) {
+        long total = 0;
+        for (Value value : heap.getContent().values()) { total += estimateBytes(value); }
+        cells.set(heap.size());
+        bytes.set(total);
+    }
+
+    public HeapLimitExceededException exceeded() {
+        return new HeapLimitExceededException("Heap limit exceeded: " + this);
+    }
+
+    public long getForcedCollections() { return forcedCollections; }
+    public long getUsedCells() { return cells.get(); }
+    public long getUsedBytes() { return bytes.get(); }
+    public long getMaxCells() { return maxCells; }
+    public long getMaxBytes() { return maxBytes; }
+
+    @Override
+    public String toString() {
+        return "cells=" + cells.get() + (maxCells == UNLIMITED ? "" : " / " + maxCells)
+                + ", bytes=" + bytes.get() + (maxBytes == UNLIMITED ? "" : " / " + maxBytes)
+                + ", forced collections=" + forcedCollections;
+    }
+}
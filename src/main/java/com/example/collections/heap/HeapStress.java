@@ -0,0 +1,110 @@
+package com.example.collections.heap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.example.model.exceptions.MyException;
+import com.example.model.values.IntValue;
+import com.example.model.values.Value;
+
+// Hammers one heap from threads that act as forked programs sharing it. Each thread takes
+// addresses from its own allocation buffer, then mixes new, write, read and free on its own
+// cells with reads of any address. A thread checks every read of its own cells, and at the end
+// the heap has to hold exactly the cells the threads kept. Fails on the first difference.
+//
+//   HeapStress [heap] [threads] [ops]   heap is striped (default), generational, open, off or map;
+//                                       ops per thread, 200000 by default
+public class HeapStress {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        String kind = args.length > 0 ? args[0] : "striped";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int ops = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        // the last round is timed, the ones before warm up the JIT
+        for (int round = 0; round < ROUNDS; round++) {
+            MyIHeap<Integer, Value> heap = newHeap(kind);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<Map<Integer, Value>>> kept = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                kept.add(pool.submit(() -> { go.await(); return hammer(heap, id, ops); }));
+            }
+            go.countDown();
+            Map<Integer, Value> expected = new HashMap<>();
+            try {
+                for (Future<Map<Integer, Value>> cells : kept) { expected.putAll(cells.get()); }
+            } finally {
+                pool.shutdownNow();
+            }
+            long time = System.nanoTime() - start;
+            if (heap.size() != expected.size() || !heap.getContent().equals(expected)) {
+                throw new IllegalStateException("heap has " + heap.size() + " cells, the threads kept " + expected.size());
+            }
+            if (round == ROUNDS - 1) {
+                System.out.printf("%-12s threads=%2d ok  %.1f M ops/s  highest address %d for %d live cells%n", kind, threads,
+                        threads * (double) ops / time * 1000, heap.getAllocator().getHighestAddress(), expected.size());
+            }
+        }
+    }
+
+    private static MyIHeap<Integer, Value> newHeap(String kind) {
+        return switch (kind) {
+            case "striped" -> new StripedHeap<>();
+            case "generational" -> new GenerationalHeap<>();
+            case "open" -> new OpenAddressingHeap<>();
+            case "off" -> new OffHeapHeap();
+            case "map" -> new MyHeap<>();
+            default -> throw new IllegalArgumentException("Unknown heap " + kind);
+        };
+    }
+
+    // returns the cells the thread left in the heap
+    private static Map<Integer, Value> hammer(MyIHeap<Integer, Value> heap, int id, int ops) throws MyException {
+        AllocationBuffer addresses = new AllocationBuffer();
+        Random random = new Random(id * 31L + 7);
+        Map<Integer, Value> mine = new HashMap<>();
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < ops; i++) {
+            int op = random.nextInt(10);
+            if (op < 3 || keys.isEmpty()) {
+                int key = addresses.allocate(heap.getAllocator());
+                Value value = new IntValue(id * 1_000_000 + i);
+                if (heap.put(key, value) != null) throw new IllegalStateException("address " + key + " handed out twice");
+                mine.put(key, value);
+                keys.add(key);
+            } else if (op < 5) {
+                int key = keys.get(random.nextInt(keys.size()));
+                Value value = new IntValue(-i);
+                if (heap.replace(key, value) == null) throw new IllegalStateException("cell " + key + " was lost");
+                mine.put(key, value);
+            } else if (op < 8) {
+                int key = keys.get(random.nextInt(keys.size()));
+                Value value = heap.getOrFail(key);
+                if (!value.equals(mine.get(key))) throw new IllegalStateException("cell " + key + " is " + value + ", expected " + mine.get(key));
+            } else if (op < 9) {
+                int index = random.nextInt(keys.size());
+                int key = keys.get(index);
+                keys.set(index, keys.get(keys.size() - 1));
+                keys.remove(keys.size() - 1);
+                mine.remove(key);
+                heap.remove(key);
+            } else {
+                // any address, other threads may be writing or freeing it
+                heap.get(1 + random.nextInt(Math.max(1, heap.getAllocator().getHighestAddress())));
+            }
+        }
+        addresses.release();
+        return mine;
+    }
+}
@@ -1,43 +1,58 @@
 package com.example.collections.heap;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.example.model.exceptions.InvalidAddressException;
+import com.example.model.exceptions.MyException;
+
+// a concurrent map, the programs forked from one another use the heap from several threads
 public class MyHeap<K, V> implements MyIHeap<K, V> {
     private Map<K, V> heap;
-    private Integer nextFreeAddress;
-
-    private static int nextAddr = 0;
+    private AddressAllocator allocator;
+    private final AtomicLong allocations = new AtomicLong();
 
     public MyHeap() {
-        heap = new HashMap<>();
-        nextFreeAddress = 0;
+        heap = new ConcurrentHashMap<>();
+        allocator = new AddressAllocator();
     }
 
-    // this doesn't work
     @SuppressWarnings("unchecked")
     public K getNextFreeAddress() {
-        nextFreeAddress += 1;
-        return (K) nextFreeAddress;
+        return (K) Integer.valueOf(allocator.allocate());
     }
 
-    public static int getNextAddr() {
-        nextAddr += 1;
-        return nextAddr;
+    @Override
+    public AddressAllocator getAllocator() {
+        return allocator;
     }
 
-
     @Override
     public V get(K key) {
         return heap.get(key);
     }
 
+    @Override
+    public V getOrFail(K key) throws MyException {
+        V value = heap.get(key);
+        if (value == null) { throw new InvalidAddressException("Address " + key + " is not defined in the heap"); }
+        return value;
+    }
+
     @Override
     public V put(K key, V value) {
         return heap.put(key, value);
     }
 
+    @Override
+    public V replace(K key, V value) {
+        return heap.replace(key, value);
+    }
+
     @Override
     public int size() {
         return heap.size();
@@ -55,7 +70,21 @@ public class MyHeap<K, V> implements MyIHeap<K, V> {
 
     @Override
     public void remove(K key) {
-        heap.remove(key);
+        if (heap.remove(key) != null) allocator.free((Integer) key);
+    }
+
+    @Override
+    public int retainAll(Collection<K> keys) {
+        int freed = 0;
+        for (Iterator<K> it = heap.keySet().iterator(); it.hasNext(); ) {
+            K key = it.next();
+            if (!keys.contains(key)) {
+                it.remove();
+                allocator.free((Integer) key);
+                freed++;
+            }
+        }
+        return freed;
     }
 
     @Override
@@ -65,13 +94,15 @@ public class MyHeap<K, V> implements MyIHeap<K, V> {
 
     @Override
     public void setContent(Map<K, V> map) {
-        heap = map;
+        heap = new ConcurrentHashMap<>(map);
+        allocator.reset(map.keySet());
     }
 
     @Override
     public MyIHeap<K, V> clone() {
         MyHeap<K, V> newHeap = new MyHeap<>();
-        newHeap.setContent(new HashMap<>(heap));
+        newHeap.heap = new ConcurrentHashMap<>(heap);
+        newHeap.allocator = allocator.copy();
         return newHeap;
     }
 
@@ -79,4 +110,17 @@ public class MyHeap<K, V> implements MyIHeap<K, V> {
     public Set<Map.Entry<K, V>> entrySet() {
         return heap.entrySet();
     }
+
+    @Override
+    public void recordAllocation() {
+        allocations.incrementAndGet();
+    }
+
+    @Override
+    public long getAllocationCount() {
+        return allocations.get();
+    }
+
+    @Override
+    public void recordWrite(K key) {}
 }
@@ -1,20 +1,36 @@
 package com.example.collections.heap;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
+import com.example.model.exceptions.MyException;
+
 
 public interface MyIHeap<K, V> {    
     public V get(K key);
+    // one lookup for rH: the cell, or an InvalidAddressException if the address is not allocated
+    public V getOrFail(K key) throws MyException;
     public V put(K key, V value);
+    // one lookup for wH: stores the value only if the address is allocated, returns the old cell or null
+    public V replace(K key, V value);
+    // a free address from the allocator of this heap, the cell is created by put
     public K getNextFreeAddress();
+    public AddressAllocator getAllocator();
     public int size();
     public String toString();
     public boolean containsKey(K key);
     public void remove(K key);
+    // sweep: keeps only the given addresses, returns how many cells were freed
+    public int retainAll(Collection<K> keys);
     public Map<K, V> getContent();
     public void setContent(Map<K, V> map);
     public MyIHeap<K, V> clone();
     public Set<Map.Entry<K, V>> entrySet();
+    // counts the cells created by new(), the GC policy triggers on it
+    public void recordAllocation();
+    public long getAllocationCount();
+    // write barrier, called after wH stored a value in an existing cell
+    public void recordWrite(K key);
 }
 
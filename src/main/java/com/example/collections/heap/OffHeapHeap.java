@@ -0,0 +1,344 @@
+package com.example.collections.heap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+import com.example.model.exceptions.InvalidAddressException;
+import com.example.model.exceptions.MyException;
+import com.example.model.types.Type;
+import com.example.model.values.BoolValue;
+import com.example.model.values.IntValue;
+import com.example.model.values.RefValue;
+import com.example.model.values.Value;
+
+// Heap that keeps int, bool and reference cells outside of the JVM heap, in a direct buffer
+// indexed by address, so millions of such cells are not objects the JVM collector has to
+// trace. A cell takes SLOT_BYTES: a tag for the kind of value, the location type of a
+// reference (as an index in a small table of the types seen so far) and the int payload.
+// Any other value (strings) stays on the JVM heap in a side table. The addresses come from
+// the allocator of the heap, which reuses freed ones, so the buffer stays as long as the
+// highest live address. Values are decoded into new objects on every read.
+public class OffHeapHeap implements MyIHeap<Integer, Value> {
+    private ByteBuffer cells;
+    private int capacity;
+    private volatile int size;
+    // values that don't fit a slot, at addresses the heap's own allocator handed out
+    private final Map<Integer, Value> objects;
+    // location types of the references, a cell stores the index of its type
+    private volatile Type[] refTypes = new Type[0];
+    private final AddressAllocator allocator;
+    private final StampedLock lock = new StampedLock();
+    private final AtomicLong allocations = new AtomicLong();
+
+    public static final int SLOT_BYTES = 8;
+    private static final int TAG = 0;
+    private static final int REF_TYPE = 2;
+    private static final int PAYLOAD = 4;
+
+    private static final byte FREE = 0;
+    private static final byte INT = 1;
+    private static final byte BOOL = 2;
+    private static final byte REF = 3;
+    private static final byte OBJECT = 4;
+
+    private static final int MIN_CAPACITY = 64;
+
+    public OffHeapHeap() {
+        this(new AddressAllocator());
+    }
+
+    private OffHeapHeap(AddressAllocator allocator) {
+        this.allocator = allocator;
+        this.objects = new ConcurrentHashMap<>();
+        newBuffer(MIN_CAPACITY);
+    }
+
+    private void newBuffer(int slots) {
+        cells = ByteBuffer.allocateDirect(slots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        capacity = slots;
+    }
+
+    // called with the write lock held
+    private void ensureCapacity(int address) {
+        if (address < capacity) return;
+        int slots = capacity;
+        while (slots <= address) { slots <<= 1; }
+        ByteBuffer old = cells;
+        newBuffer(slots);
+        cells.put(0, old, 0, old.capacity());
+    }
+
+    // bytes of native memory reserved for the cells
+    public long getReservedBytes() {
+        return (long) capacity * SLOT_BYTES;
+    }
+
+    public double getBytesPerCell() {
+        return size == 0 ? 0 : (double) getReservedBytes() / size;
+    }
+
+    // the index of the type in the table, added if it is new; called with the write lock held
+    private short refTypeIndex(Type type) {
+        Type[] types = refTypes;
+        for (short i = 0; i < types.length; i++) {
+            if (types[i] == type) return i;
+        }
+        if (types.length == Short.MAX_VALUE) throw new IllegalStateException("Too many reference types");
+        Type[] grown = Arrays.copyOf(types, types.length + 1);
+        grown[types.length] = type;
+        refTypes = grown;
+        return (short) types.length;
+    }
+
+    // the value stored at the address, null for a free slot
+    private Value decode(int address) {
+        if (address <= 0 || address >= capacity) return null;
+        int slot = address * SLOT_BYTES;
+        switch (cells.get(slot + TAG)) {
+            case INT: return new IntValue(cells.getInt(slot + PAYLOAD));
+            case BOOL: return new BoolValue(cells.getInt(slot + PAYLOAD) != 0);
+            case REF: return new RefValue(cells.getInt(slot + PAYLOAD), refTypes[cells.getShort(slot + REF_TYPE)]);
+            case OBJECT: return objects.get(address);
+            default: return null;
+        }
+    }
+
+    // called with the write lock held, the address is in the buffer
+    private void encode(int address, Value value) {
+        int slot = address * SLOT_BYTES;
+        byte tag;
+        int payload = 0;
+        if (value instanceof IntValue) {
+            tag = INT;
+            payload = ((IntValue) value).getValue();
+        } else if (value instanceof BoolValue) {
+            tag = BOOL;
+            payload = ((BoolValue) value).getValue() ? 1 : 0;
+        } else if (value instanceof RefValue) {
+            tag = REF;
+            payload = ((RefValue) value).getAddress();
+            cells.putShort(slot + REF_TYPE, refTypeIndex(((RefValue) value).getLocationType()));
+        } else {
+            tag = OBJECT;
+            objects.put(address, value);
+        }
+        if (cells.get(slot + TAG) == OBJECT && tag != OBJECT) objects.remove(address);
+        cells.putInt(slot + PAYLOAD, payload);
+        cells.put(slot + TAG, tag);
+    }
+
+    // called with the write lock held
+    private void clear(int address) {
+        int slot = address * SLOT_BYTES;
+        if (cells.get(slot + TAG) == OBJECT) objects.remove(address);
+        cells.put(slot + TAG, FREE);
+    }
+
+    public Value get(int key) {
+        long stamp = lock.tryOptimisticRead();
+        Value value;
+        try {
+            value = decode(key);
+        } catch (RuntimeException e) {
+            // a read racing with a write can see a half written slot, it is retried below
+            value = null;
+        }
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try { value = decode(key); }
+            finally { lock.unlockRead(stamp); }
+        }
+        return value;
+    }
+
+    public Value getOrFail(int key) throws MyException {
+        Value value = get(key);
+        if (value == null) { throw new InvalidAddressException("Address " + key + " is not defined in the heap"); }
+        return value;
+    }
+
+    public Value put(int key, Value value) {
+        if (value == null) throw new IllegalArgumentException("A heap cell can't be null");
+        if (key <= 0) throw new IllegalArgumentException("Addresses start at 1");
+        long stamp = lock.writeLock();
+        try {
+            ensureCapacity(key);
+            Value old = decode(key);
+            encode(key, value);
+            if (old == null) size++;
+            return old;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // stores the value only if the address is already in the heap
+    public Value replace(int key, Value value) {
+        if (value == null) throw new IllegalArgumentException("A heap cell can't be null");
+        long stamp = lock.writeLock();
+        try {
+            Value old = decode(key);
+            if (old != null) encode(key, value);
+            return old;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Value remove(int key) {
+        long stamp = lock.writeLock();
+        try {
+            Value old = decode(key);
+            if (old == null) return null;
+            clear(key);
+            size--;
+            allocator.free(key);
+            return old;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int retainAll(Collection<Integer> marked) {
+        long stamp = lock.writeLock();
+        try {
+            int freed = 0;
+            for (int address = 1; address < capacity; address++) {
+                if (cells.get(address * SLOT_BYTES + TAG) == FREE || marked.contains(address)) continue;
+                clear(address);
+                allocator.free(address);
+                freed++;
+            }
+            size -= freed;
+            return freed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Value get(Integer key) {
+        return get(key.intValue());
+    }
+
+    @Override
+    public Value getOrFail(Integer key) throws MyException {
+        return getOrFail(key.intValue());
+    }
+
+    @Override
+    public Value put(Integer key, Value value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public Value replace(Integer key, Value value) {
+        return replace(key.intValue(), value);
+    }
+
+    @Override
+    public Integer getNextFreeAddress() {
+        return allocator.allocate();
+    }
+
+    @Override
+    public AddressAllocator getAllocator() {
+        return allocator;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return getContent().toString();
+    }
+
+    @Override
+    public boolean containsKey(Integer key) {
+        return get(key.intValue()) != null;
+    }
+
+    @Override
+    public void remove(Integer key) {
+        remove(key.intValue());
+    }
+
+    // a copy of the cells, changing it doesn't change the heap
+    @Override
+    public Map<Integer, Value> getContent() {
+        Map<Integer, Value> content = new HashMap<>();
+        long stamp = lock.readLock();
+        try {
+            for (int address = 1; address < capacity; address++) {
+                Value value = decode(address);
+                if (value != null) content.put(address, value);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return content;
+    }
+
+    @Override
+    public void setContent(Map<Integer, Value> map) {
+        long stamp = lock.writeLock();
+        try {
+            newBuffer(MIN_CAPACITY);
+            objects.clear();
+            for (Map.Entry<Integer, Value> e : map.entrySet()) {
+                ensureCapacity(e.getKey());
+                encode(e.getKey(), e.getValue());
+            }
+            size = map.size();
+            allocator.reset(map.keySet());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public MyIHeap<Integer, Value> clone() {
+        OffHeapHeap newHeap = new OffHeapHeap(allocator.copy());
+        long stamp = lock.readLock();
+        try {
+            newHeap.newBuffer(capacity);
+            newHeap.cells.put(0, cells, 0, cells.capacity());
+            newHeap.objects.putAll(objects);
+            newHeap.refTypes = refTypes;
+            newHeap.size = size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return newHeap;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, Value>> entrySet() {
+        return getContent().entrySet();
+    }
+
+    @Override
+    public void recordAllocation() {
+        allocations.incrementAndGet();
+    }
+
+    @Override
+    public long getAllocationCount() {
+        return allocations.get();
+    }
+
+    @Override
+    public void recordWrite(Integer key) {}
+}
@@ -0,0 +1,342 @@
+package com.example.collections.heap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+import com.example.model.exceptions.InvalidAddressException;
+import com.example.model.exceptions.MyException;
+
+// Heap keyed by primitive ints: the addresses are kept in an int array and the cells in a
+// parallel array, and a lookup probes linearly from the hash of the address. There is no
+// entry object and no boxed key per cell, and getOrFail finds a cell in a single probe
+// sequence instead of a containsKey followed by a get.
+// The programs of a heap run on several threads: writes take the lock, reads run without
+// it and are only retried under the lock if a write happened in the meantime.
+public class OpenAddressingHeap<V> implements MyIHeap<Integer, V> {
+    private Table table;
+    private volatile int size;
+    private final StampedLock lock = new StampedLock();
+    private AddressAllocator allocator;
+    private final AtomicLong allocations = new AtomicLong();
+
+    private static final int MIN_CAPACITY = 16;
+
+    public interface CellVisitor<V> {
+        void visit(int address, V value);
+    }
+
+    // the arrays of one capacity, replaced as a whole when the table grows or shrinks
+    private static final class Table {
+        final int[] keys;
+        // a null cell marks a free slot, the heap never stores null
+        final Object[] values;
+        final int shift;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            values = new Object[capacity];
+            shift = 32 - Integer.numberOfTrailingZeros(capacity);
+            mask = capacity - 1;
+        }
+
+        // Fibonacci hashing, consecutive addresses end up spread over the whole table
+        int home(int key) {
+            return (key * 0x9E3779B9) >>> shift;
+        }
+
+        // bounded, so a read racing with a write always ends (and is then retried)
+        int find(int key) {
+            for (int i = home(key), n = 0; n < keys.length && values[i] != null; i = (i + 1) & mask, n++) {
+                if (keys[i] == key) return i;
+            }
+            return -1;
+        }
+
+        // the key is known not to be in the table and there is room for it
+        void insertNew(int key, Object value) {
+            int i = home(key);
+            while (values[i] != null) { i = (i + 1) & mask; }
+            keys[i] = key;
+            values[i] = value;
+        }
+    }
+
+    public OpenAddressingHeap() {
+        this(0);
+    }
+
+    public OpenAddressingHeap(int expectedSize) {
+        this(expectedSize, new AddressAllocator());
+    }
+
+    // the regions of a generational heap share the allocator of the heap
+    public OpenAddressingHeap(int expectedSize, AddressAllocator allocator) {
+        this.allocator = allocator;
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    // the table is grown before it gets more than 3/4 full
+    private static int capacityFor(int cells) {
+        int capacity = MIN_CAPACITY;
+        while (capacity - (capacity >> 2) < cells) { capacity <<= 1; }
+        return capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        long stamp = lock.tryOptimisticRead();
+        Table t = table;
+        int i = t.find(key);
+        Object value = i < 0 ? null : t.values[i];
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                i = table.find(key);
+                value = i < 0 ? null : table.values[i];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return (V) value;
+    }
+
+    public V getOrFail(int key) throws MyException {
+        V value = get(key);
+        if (value == null) { throw new InvalidAddressException("Address " + key + " is not defined in the heap"); }
+        return value;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) throw new IllegalArgumentException("A heap cell can't be null");
+        long stamp = lock.writeLock();
+        try {
+            Table t = table;
+            int i = t.home(key);
+            for (; t.values[i] != null; i = (i + 1) & t.mask) {
+                if (t.keys[i] == key) {
+                    V old = (V) t.values[i];
+                    t.values[i] = value;
+                    return old;
+                }
+            }
+            t.keys[i] = key;
+            t.values[i] = value;
+            if (++size > t.keys.length - (t.keys.length >> 2)) rehash(t.keys.length << 1);
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // stores the value only if the address is already in the heap
+    @SuppressWarnings("unchecked")
+    public V replace(int key, V value) {
+        if (value == null) throw new IllegalArgumentException("A heap cell can't be null");
+        long stamp = lock.writeLock();
+        try {
+            int i = table.find(key);
+            if (i < 0) return null;
+            V old = (V) table.values[i];
+            table.values[i] = value;
+            return old;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Backward shift deletion: the cells after the removed one in its probe run move up into
+    // the hole when their home slot allows it, so no tombstones are left behind.
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        long stamp = lock.writeLock();
+        try {
+            Table t = table;
+            int hole = t.find(key);
+            if (hole < 0) return null;
+            V old = (V) t.values[hole];
+            for (int j = (hole + 1) & t.mask; t.values[j] != null; j = (j + 1) & t.mask) {
+                if (((j - t.home(t.keys[j])) & t.mask) >= ((j - hole) & t.mask)) {
+                    t.keys[hole] = t.keys[j];
+                    t.values[hole] = t.values[j];
+                    hole = j;
+                }
+            }
+            t.values[hole] = null;
+            size--;
+            allocator.free(key);
+            return old;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(CellVisitor<V> visitor) {
+        long stamp = lock.readLock();
+        try {
+            Table t = table;
+            for (int i = 0; i < t.keys.length; i++) {
+                if (t.values[i] != null) visitor.visit(t.keys[i], (V) t.values[i]);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // called with the write lock held
+    private void rehash(int capacity) {
+        Table old = table;
+        Table t = new Table(capacity);
+        for (int i = 0; i < old.keys.length; i++) {
+            if (old.values[i] != null) t.insertNew(old.keys[i], old.values[i]);
+        }
+        table = t;
+    }
+
+    // Keeps only the given addresses and returns how many cells were dropped. The table is
+    // rebuilt for the survivors, so it also shrinks after a collection freed most of it.
+    @Override
+    public int retainAll(Collection<Integer> marked) {
+        long stamp = lock.writeLock();
+        try {
+            Table old = table;
+            int[] kept = new int[size];
+            int count = 0;
+            for (int i = 0; i < old.keys.length; i++) {
+                if (old.values[i] == null) continue;
+                if (marked.contains(old.keys[i])) kept[count++] = i;
+                else allocator.free(old.keys[i]);
+            }
+            int freed = size - count;
+            if (freed == 0) return 0;
+
+            Table t = new Table(capacityFor(count));
+            for (int k = 0; k < count; k++) { t.insertNew(old.keys[kept[k]], old.values[kept[k]]); }
+            table = t;
+            size = count;
+            return freed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public V get(Integer key) {
+        return get(key.intValue());
+    }
+
+    @Override
+    public V getOrFail(Integer key) throws MyException {
+        return getOrFail(key.intValue());
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V replace(Integer key, V value) {
+        return replace(key.intValue(), value);
+    }
+
+    @Override
+    public Integer getNextFreeAddress() {
+        return allocator.allocate();
+    }
+
+    @Override
+    public AddressAllocator getAllocator() {
+        return allocator;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return getContent().toString();
+    }
+
+    @Override
+    public boolean containsKey(Integer key) {
+        return containsKey(key.intValue());
+    }
+
+    @Override
+    public void remove(Integer key) {
+        remove(key.intValue());
+    }
+
+    // a copy of the cells, changing it doesn't change the heap
+    @Override
+    public Map<Integer, V> getContent() {
+        Map<Integer, V> content = new HashMap<>();
+        forEach(content::put);
+        return content;
+    }
+
+    @Override
+    public void setContent(Map<Integer, V> map) {
+        Table t = new Table(capacityFor(map.size()));
+        for (Map.Entry<Integer, V> e : map.entrySet()) { t.insertNew(e.getKey(), e.getValue()); }
+        long stamp = lock.writeLock();
+        try {
+            table = t;
+            size = map.size();
+            allocator.reset(map.keySet());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public MyIHeap<Integer, V> clone() {
+        return copy(allocator.copy());
+    }
+
+    OpenAddressingHeap<V> copy(AddressAllocator allocator) {
+        OpenAddressingHeap<V> newHeap = new OpenAddressingHeap<>(0, allocator);
+        long stamp = lock.readLock();
+        try {
+            Table t = new Table(table.keys.length);
+            System.arraycopy(table.keys, 0, t.keys, 0, t.keys.length);
+            System.arraycopy(table.values, 0, t.values, 0, t.values.length);
+            newHeap.table = t;
+            newHeap.size = size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return newHeap;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, V>> entrySet() {
+        return getContent().entrySet();
+    }
+
+    @Override
+    public void recordAllocation() {
+        allocations.incrementAndGet();
+    }
+
+    @Override
+    public long getAllocationCount() {
+        return allocations.get();
+    }
+
+    @Override
+    public void recordWrite(Integer key) {}
+}
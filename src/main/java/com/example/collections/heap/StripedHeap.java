@@ -0,0 +1,164 @@
+package com.example.collections.heap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.model.exceptions.MyException;
+
+// Heap split in stripes by the low bits of the address, each one an open addressing table
+// with its own lock. Consecutive addresses land in different stripes, so forked programs
+// allocating and writing at the same time mostly take different locks, and reads don't
+// take any. There is no lock over the whole heap: size and the sweep go stripe by stripe.
+public class StripedHeap<V> implements MyIHeap<Integer, V> {
+    private final OpenAddressingHeap<V>[] stripes;
+    private final int mask;
+    private final AddressAllocator allocator;
+    private final AtomicLong allocations = new AtomicLong();
+
+    // a few stripes per core, so two threads rarely want the same one
+    public static final int DEFAULT_STRIPES = stripesFor(Runtime.getRuntime().availableProcessors());
+
+    private static int stripesFor(int threads) {
+        int n = 4;
+        while (n < 4 * threads) { n <<= 1; }
+        return n;
+    }
+
+    public StripedHeap() {
+        this(DEFAULT_STRIPES, new AddressAllocator());
+    }
+
+    // the stripes, and the regions of a generational heap, share the allocator of the heap
+    @SuppressWarnings("unchecked")
+    public StripedHeap(int stripeCount, AddressAllocator allocator) {
+        if (Integer.bitCount(stripeCount) != 1) throw new IllegalArgumentException("The number of stripes must be a power of two");
+        this.allocator = allocator;
+        this.stripes = (OpenAddressingHeap<V>[]) new OpenAddressingHeap<?>[stripeCount];
+        this.mask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) { stripes[i] = new OpenAddressingHeap<>(0, allocator); }
+    }
+
+    public int getStripeCount() { return stripes.length; }
+
+    private OpenAddressingHeap<V> stripe(int address) {
+        return stripes[address & mask];
+    }
+
+    public V get(int key) { return stripe(key).get(key); }
+    public V getOrFail(int key) throws MyException { return stripe(key).getOrFail(key); }
+    public V put(int key, V value) { return stripe(key).put(key, value); }
+    public V replace(int key, V value) { return stripe(key).replace(key, value); }
+    public boolean containsKey(int key) { return stripe(key).containsKey(key); }
+    public V remove(int key) { return stripe(key).remove(key); }
+
+    public void forEach(OpenAddressingHeap.CellVisitor<V> visitor) {
+        for (OpenAddressingHeap<V> s : stripes) { s.forEach(visitor); }
+    }
+
+    @Override
+    public int retainAll(Collection<Integer> marked) {
+        int freed = 0;
+        for (OpenAddressingHeap<V> s : stripes) { freed += s.retainAll(marked); }
+        return freed;
+    }
+
+    @Override
+    public V get(Integer key) {
+        return get(key.intValue());
+    }
+
+    @Override
+    public V getOrFail(Integer key) throws MyException {
+        return getOrFail(key.intValue());
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V replace(Integer key, V value) {
+        return replace(key.intValue(), value);
+    }
+
+    @Override
+    public Integer getNextFreeAddress() {
+        return allocator.allocate();
+    }
+
+    @Override
+    public AddressAllocator getAllocator() {
+        return allocator;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (OpenAddressingHeap<V> s : stripes) { size += s.size(); }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return getContent().toString();
+    }
+
+    @Override
+    public boolean containsKey(Integer key) {
+        return containsKey(key.intValue());
+    }
+
+    @Override
+    public void remove(Integer key) {
+        remove(key.intValue());
+    }
+
+    // a copy of the cells, changing it doesn't change the heap
+    @Override
+    public Map<Integer, V> getContent() {
+        Map<Integer, V> content = new HashMap<>();
+        forEach(content::put);
+        return content;
+    }
+
+    // the stripes are refilled one cell at a time, setContent of a stripe would reset the shared allocator
+    @Override
+    public void setContent(Map<Integer, V> map) {
+        for (int i = 0; i < stripes.length; i++) { stripes[i] = new OpenAddressingHeap<>(map.size() / stripes.length, allocator); }
+        for (Map.Entry<Integer, V> e : map.entrySet()) { put(e.getKey().intValue(), e.getValue()); }
+        allocator.reset(map.keySet());
+    }
+
+    @Override
+    public MyIHeap<Integer, V> clone() {
+        return copy(allocator.copy());
+    }
+
+    StripedHeap<V> copy(AddressAllocator allocator) {
+        StripedHeap<V> newHeap = new StripedHeap<>(stripes.length, allocator);
+        for (int i = 0; i < stripes.length; i++) { newHeap.stripes[i] = stripes[i].copy(allocator); }
+        return newHeap;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, V>> entrySet() {
+        return getContent().entrySet();
+    }
+
+    @Override
+    public void recordAllocation() {
+        allocations.incrementAndGet();
+    }
+
+    @Override
+    public long getAllocationCount() {
+        return allocations.get();
+    }
+
+    @Override
+    public void recordWrite(Integer key) {}
+}
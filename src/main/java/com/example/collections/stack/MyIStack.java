@@ -7,6 +7,8 @@ public interface MyIStack<T> {
     void push(T v);
     T pop();
     boolean isEmpty();
+    // the stack as it is now, later pushes and pops on this one don't change it
+    MyIStack<T> snapshot();
     String toString();
     Stack<T> deepCopy();
     Stream<T> stream();
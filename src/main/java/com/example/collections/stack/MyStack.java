@@ -1,55 +1,86 @@
 package com.example.collections.stack;
 
+import java.util.Arrays;
+import java.util.EmptyStackException;
 import java.util.Stack;
 import java.util.stream.Stream;
 
-public class MyStack<T> implements MyIStack<T> {    
-    private Stack<T> stack;
+// Linked list of immutable cells: push puts a new cell in front of the head and pop moves
+// the head to the next cell, without any lock. A stack belongs to one program, whose thread
+// is its only writer; the logger, the GUI and checkpoints read a snapshot, which only
+// captures the head and keeps the stack as it was whatever the program does next.
+public class MyStack<T> implements MyIStack<T> {
+    private static final class Node<T> {
+        final T value;
+        final Node<T> next;
+        final int size;
+
+        Node(T value, Node<T> next) {
+            this.value = value;
+            this.next = next;
+            this.size = next == null ? 1 : next.size + 1;
+        }
+    }
+
+    private volatile Node<T> head;
 
     public MyStack() {
-        stack = new Stack<T>();
+        head = null;
+    }
+
+    private MyStack(Node<T> head) {
+        this.head = head;
     }
 
     @Override
     public void push(T v) {
-        stack.push(v);
+        head = new Node<>(v, head);
     }
 
     @Override
     public T pop() {
-        return stack.pop();
+        Node<T> top = head;
+        if (top == null) throw new EmptyStackException();
+        head = top.next;
+        return top.value;
     }
 
     @Override
     public boolean isEmpty() {
-        return stack.isEmpty();
+        return head == null;
     }
 
+    @Override
+    public MyIStack<T> snapshot() {
+        return new MyStack<>(head);
+    }
+
+    // top of the stack first, one element per line
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (T elem : stack) {
-            sb.insert(0, elem.toString()).insert(0, "\n");
+        for (Node<T> n = head; n != null; n = n.next) {
+            if (n != head) sb.append("\n");
+            sb.append(n.value.toString());
         }
-        if (sb.length() == 0) return "";
-
-        // remove the last newline char from the front 
-        sb.deleteCharAt(0);
-        
         return sb.toString();
     }
 
     @Override
     public Stack<T> deepCopy() {
         Stack<T> newStack = new Stack<T>();
-        for (T elem : stack) {
-            newStack.push(elem);
-        }
+        stream().forEach(newStack::push);
         return newStack;
     }
 
+    // bottom of the stack first, like a java.util.Stack
     @Override
+    @SuppressWarnings("unchecked")
     public Stream<T> stream() {
-        return stack.stream();
+        Node<T> n = head;
+        if (n == null) return Stream.empty();
+        Object[] items = new Object[n.size];
+        for (int i = items.length - 1; n != null; n = n.next, i--) { items[i] = n.value; }
+        return (Stream<T>) Arrays.stream(items);
     }
 }
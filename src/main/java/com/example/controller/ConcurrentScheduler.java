@@ -0,0 +1,161 @@
+package com.example.controller;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.collections.list.MyIList;
+import com.example.collections.list.MyList;
+import com.example.model.PrgState;
+import com.example.model.exceptions.MyException;
+
+// Base of the schedulers that run every program independently. A program runs a quantum
+// of statements at a time; between quanta it passes a safe point where the GC and the log
+// see a stable state of every program.
+public abstract class ConcurrentScheduler implements IScheduler {
+    protected final Controller controller;
+    protected final int quantum;
+    protected final SchedulerStats stats;
+    // programs still running, they are the roots of the garbage collector
+    private final Set<PrgState> live;
+    private final Queue<MyException> failures;
+    // completed once the last live program of the current run finishes
+    private volatile CompletableFuture<Void> done;
+    // statements run under the read lock, GC and logging take the write lock
+    private final ReentrantReadWriteLock safePoint;
+
+    public static final int DEFAULT_QUANTUM = 1000;
+
+    protected ConcurrentScheduler(Controller controller, int parallelism, int quantum) {
+        if (quantum < 1) throw new IllegalArgumentException("Quantum must be at least 1");
+        this.controller = controller;
+        this.quantum = quantum;
+        this.stats = new SchedulerStats(parallelism);
+        this.live = ConcurrentHashMap.newKeySet();
+        this.failures = new ConcurrentLinkedQueue<>();
+        this.safePoint = new ReentrantReadWriteLock();
+    }
+
+    // hands a new program to the underlying threads
+    protected abstract void start(PrgState prg);
+    // called before the first program of a run is started
+    protected void startUp() {}
+    // called once every program of the run is completed
+    protected abstract void shutdown();
+    protected long getStealCount() { return 0; }
+
+    // Runs one quantum of the program and starts the programs it forks.
+    // Returns true if the program has to be scheduled again.
+    protected boolean runQuantum(PrgState prg) {
+        long start = System.nanoTime();
+        try {
+            int steps = runSteps(prg);
+            if (steps < 0) return false;
+            passSafePoint(prg);
+            if (prg.isNotCompleted()) return true;
+            finish(prg);
+            return false;
+        } finally {
+            stats.addBusyNanos(System.nanoTime() - start);
+        }
+    }
+
+    // returns the number of steps run, or -1 if the program failed
+    private int runSteps(PrgState prg) {
+        int steps = 0;
+        try {
+            while (steps < quantum && prg.isNotCompleted()) {
+                PrgState forked;
+                safePoint.readLock().lock();
+                try { forked = prg.oneStep(); }
+                finally { safePoint.readLock().unlock(); }
+                steps++;
+
+                if (forked != null) {
+                    live.add(forked);
+                    start(forked);
+                }
+                if (prg.isBlocked() || prg.isWaitingForCollection()) break;
+            }
+            return steps;
+        } catch (MyException e) {
+            failures.add(e);
+            finish(prg);
+            return -1;
+        } catch (RuntimeException e) {
+            // the program is gone either way, the run must not wait for it
+            failures.add(failure(prg, e));
+            finish(prg);
+            return -1;
+        } finally {
+            stats.addSteps(steps);
+        }
+    }
+
+    // Takes a blocked program off its thread; resume runs when a release wakes it.
+    // Returns false if the program is not blocked (anymore) and has to keep running.
+    protected boolean parkIfBlocked(PrgState prg, Runnable resume) {
+        if (!prg.isBlocked() || !prg.park(resume)) return false;
+        stats.addPark();
+        return true;
+    }
+
+    private void passSafePoint(PrgState prg) {
+        safePoint.writeLock().lock();
+        try {
+            collectGarbage(prg);
+            controller.getRepo().logPrgStateExec(prg);
+        } catch (MyException e) {
+            failures.add(e);
+        } catch (RuntimeException e) {
+            failures.add(failure(prg, e));
+        } finally {
+            safePoint.writeLock().unlock();
+        }
+    }
+
+    private static MyException failure(PrgState prg, RuntimeException e) {
+        return new MyException("Program " + prg.getId() + " failed: " + e, e);
+    }
+
+    private void finish(PrgState prg) {
+        live.remove(prg);
+        if (live.isEmpty()) done.complete(null);
+    }
+
+    private void collectGarbage(PrgState prg) {
+        // asked first so the roots are only gathered when the collector has work to do
+        if (!controller.isGcDue(prg.getHeap())) return;
+        MyIList<PrgState> roots = new MyList<>();
+        roots.addAll(live);
+        controller.collectGarbage(roots);
+    }
+
+    @Override
+    public void run(MyIList<PrgState> prgList) throws MyException {
+        long start = System.nanoTime();
+        // every run gets its own threads and completion, a scheduler can run a repository again
+        done = new CompletableFuture<>();
+        failures.clear();
+        startUp();
+        long stealsBefore = getStealCount();
+
+        live.addAll(prgList);
+        for (PrgState prg : prgList) { start(prg); }
+        if (!live.isEmpty()) done.join();
+        shutdown();
+
+        stats.setSteals(getStealCount() - stealsBefore);
+        stats.addElapsedNanos(System.nanoTime() - start);
+        controller.getRepo().setProgramList(new MyList<>());
+
+        MyException failure = failures.poll();
+        if (failure != null) throw failure;
+    }
+
+    @Override
+    public SchedulerStats getStats() { return stats; }
+}
@@ -1,20 +1,33 @@
 package com.example.controller;
 
+import com.example.collections.heap.ConcurrentMarkingHeap;
+import com.example.collections.heap.GenerationalHeap;
+import com.example.collections.heap.HeapQuota;
 import com.example.collections.heap.MyIHeap;
-import com.example.collections.heap.MyHeap;
+import com.example.collections.heap.OffHeapHeap;
 import com.example.collections.list.MyIList;
 import com.example.collections.list.MyList;
+import com.example.controller.checkpoint.Checkpoint;
+import com.example.controller.checkpoint.CheckpointManager;
+import com.example.controller.gc.GarbageCollector;
+import com.example.controller.gc.GcPolicy;
+import com.example.controller.gc.GcStats;
 import com.example.repository.IRepository;
+import com.example.model.enums.SchedulerMode;
 import com.example.model.exceptions.MyException;
 import com.example.model.PrgState;
 import com.example.model.values.Value;
 import com.example.model.values.RefValue;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
@@ -22,49 +35,113 @@ import java.util.stream.Collectors;
 public class Controller {
     IRepository repo;
     public ExecutorService executor;
+    // how many statements a program runs per scheduling round, 1 is the step-exact mode
+    private int quantum;
+    private IScheduler scheduler;
+    // threads reported are the ones of the executor made by startExecutor
+    private final SchedulerStats stats = new SchedulerStats(0);
+    private final GarbageCollector garbageCollector = new GarbageCollector();
+    // budget of the shared heap, null for no limit
+    private HeapQuota heapQuota;
+    // checkpoints of the rounds run by runRound, null until enableCheckpoints
+    private CheckpointManager checkpoints;
+    // set while runRound runs again rounds that were already logged
+    private boolean replaying;
+
+    public static final int STEP_EXACT = 1;
 
     public Controller() {
         repo = null;
+        quantum = STEP_EXACT;
     }
 
     public Controller(IRepository r) {
         repo = r;
+        quantum = STEP_EXACT;
+    }
+
+    public Controller(IRepository r, int quantum) {
+        repo = r;
+        setQuantum(quantum);
+    }
+
+    // pool the lockstep rounds run the programs on, shut down by the caller once the run is over
+    public ExecutorService startExecutor(int threads) {
+        executor = Executors.newFixedThreadPool(threads);
+        stats.setParallelism(threads);
+        return executor;
+    }
+
+    // stops the threads of the controller once the run is over, a later round starts them again
+    public void shutdown() {
+        if (executor != null) executor.shutdownNow();
+        garbageCollector.shutdown();
     }
 
     public int getNumberOfPrograms() { return repo.getProgramList().size(); }
     public MyIList<PrgState> getProgramList() { return repo.getProgramList(); }
 
+    // collects the heap in place and returns it
     public MyIHeap<Integer, Value> conservativeGarbageCollector(MyIList<PrgState> prgList, MyIHeap<Integer, Value> heap) {
-        // Collect all reachable addresses from all program states
-        Set<Integer> reachableAddresses = new HashSet<>();
-        for (PrgState prg : prgList) {
-            reachableAddresses.addAll(getAddrFromSymTable(prg.getSymTable().values()));
+        garbageCollector.collect(prgList, heap);
+        return heap;
+    }
+
+    // Moves the shared heap of the programs to a heap that is marked by a background thread
+    // while they run. Has to be called before the programs start.
+    public void enableConcurrentGc() {
+        moveHeap(new ConcurrentMarkingHeap<Integer, Value>(v -> v instanceof RefValue ? ((RefValue) v).getAddress() : null));
+    }
+
+    // Moves the shared heap of the programs to a heap with a young and an old region, so most
+    // collections only look at the cells allocated since the last one. Has to be called
+    // before the programs start.
+    public void enableGenerationalHeap() {
+        moveHeap(new GenerationalHeap<Value>());
+    }
+
+    // Moves the int, bool and reference cells of the programs out of the JVM heap, for programs
+    // that allocate millions of them. Has to be called before the programs start.
+    public void enableOffHeapCells() {
+        moveHeap(new OffHeapHeap());
+    }
+
+    private void moveHeap(MyIHeap<Integer, Value> heap) {
+        MyIList<PrgState> prgList = repo.getProgramList();
+        if (prgList.isEmpty()) return;
+        heap.setContent(prgList.get(0).getHeap().getContent());
+        for (PrgState prg : prgList) { prg.setHeap(heap); }
+    }
+
+    // Limits the shared heap of the programs to maxCells cells and about maxBytes bytes
+    // (HeapQuota.UNLIMITED for no limit on one of them). A new() that doesn't fit forces a
+    // full collection, and fails with a HeapLimitExceededException if it still doesn't fit.
+    // Has to be called before the programs start.
+    public void setHeapLimits(long maxCells, long maxBytes) {
+        heapQuota = new HeapQuota(maxCells, maxBytes);
+        MyIList<PrgState> prgList = repo.getProgramList();
+        if (!prgList.isEmpty()) heapQuota.count(prgList.get(0).getHeap());
+        for (PrgState prg : prgList) { prg.setHeapQuota(heapQuota); }
+    }
+
+    // live usage of the heap against its limits, null if setHeapLimits wasn't called
+    public HeapQuota getHeapQuota() { return heapQuota; }
+
+    public boolean isGcDue(MyIHeap<Integer, Value> heap) {
+        return (heapQuota != null && heapQuota.isCollectionRequested()) || garbageCollector.isDue(heap);
+    }
+
+    // collects the shared heap of the programs if the GC policy or a program out of quota asks for it
+    public void collectGarbage(MyIList<PrgState> prgList) {
+        if (prgList.isEmpty()) return;
+        MyIHeap<Integer, Value> heap = prgList.get(0).getHeap();
+        if (heapQuota != null && heapQuota.isCollectionRequested()) {
+            garbageCollector.collect(prgList, heap, true);
+            heapQuota.collectedOnRequest(heap);
+        } else if (garbageCollector.collectIfNeeded(prgList, heap) && heapQuota != null) {
+            heapQuota.collected(heap);
         }
-    
-        // Collect all reachable addresses from the heap
-        boolean added;
-        do {
-            added = false;
-            Set<Integer> newAddresses = heap.entrySet().stream()
-                    .filter(e -> reachableAddresses.contains(e.getKey()))
-                    .map(e -> e.getValue())
-                    .filter(v -> v instanceof RefValue)
-                    .map(v -> ((RefValue) v).getAddress())
-                    .filter(addr -> !reachableAddresses.contains(addr))
-                    .collect(Collectors.toSet());
-            added = reachableAddresses.addAll(newAddresses);
-        } while (added);
-    
-        // Filter and collect the entries into a new map
-        Map<Integer, Value> newHeapContent = heap.entrySet().stream()
-                .filter(e -> reachableAddresses.contains(e.getKey()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-    
-        // Create a new instance of MyHeap with the filtered content
-        MyIHeap<Integer, Value> newHeap = new MyHeap<>();
-        newHeap.setContent(newHeapContent);
-        return newHeap;
-    } 
+    }
 
     public MyIList<Integer> getAddrFromSymTable(Collection<Value> symTableValues) {
         return symTableValues.stream()
@@ -73,19 +150,49 @@ public class Controller {
                 .collect(Collectors.toCollection(MyList::new));
     }
 
-    public void oneStepForAllPrg(MyIList<PrgState> prgList) throws MyException {
-        for (PrgState prg : prgList) { repo.logPrgStateExec(prg); }
+    // Runs the program for up to quantum statements. The quantum ends early when the
+    // program forks (the child joins the next round), blocks on a semaphore or waits for a
+    // collection to make room in the heap quota.
+    public PrgState runQuantum(PrgState prg) throws MyException {
+        long start = System.nanoTime();
+        int steps = 0;
+        try {
+            while (steps < quantum && prg.isNotCompleted()) {
+                PrgState forked = prg.oneStep();
+                steps++;
+                if (forked != null || prg.isBlocked() || prg.isWaitingForCollection()) return forked;
+            }
+            return null;
+        } finally {
+            stats.addSteps(steps);
+            stats.addBusyNanos(System.nanoTime() - start);
+        }
+    }
 
+    // Returns false, without logging anything, if every program is blocked and none could run.
+    public boolean oneStepForAllPrg(MyIList<PrgState> prgList) throws MyException {
+        // blocked programs sit in a semaphore queue until a release wakes them
         MyIList<Callable<PrgState>> callList = prgList.stream()
-                .map((PrgState p) -> (Callable<PrgState>)(() -> { return p.oneStep(); }))
+                .filter(p -> !p.isBlocked())
+                .map((PrgState p) -> (Callable<PrgState>)(() -> { return runQuantum(p); }))
                 .collect(Collectors.toCollection(MyList::new));
+        stats.addSkippedSteps(prgList.size() - callList.size());
+        if (callList.isEmpty()) return false;
 
+        // in quantum mode the state before the round is the one logged after the previous round
+        if (quantum == STEP_EXACT && !replaying) repo.logPrgStatesExec(prgList);
+
+        // a program that failed stops the run once the round is logged, like in the concurrent schedulers
+        MyException[] failure = new MyException[1];
         MyIList<PrgState> newPrgList;
         try {
             newPrgList = executor.invokeAll(callList).stream()
                 .map(future -> {
                     try {
                         return future.get();
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof MyException && failure[0] == null) failure[0] = (MyException) e.getCause();
+                        return null;
                     } catch (Exception e) {
                         return null;
                     }
@@ -97,25 +204,105 @@ public class Controller {
         }
         
         prgList.addAll(newPrgList);
-        for (PrgState prg : prgList) { repo.logPrgStateExec(prg); }
+        if (!replaying) repo.logPrgStatesExec(prgList);
         repo.setProgramList(prgList);
+        if (failure[0] != null) throw failure[0];
+        return true;
     }
 
-    public void executeAllSteps() throws MyException {
-        executor = java.util.concurrent.Executors.newFixedThreadPool(2);
+    // One round as the GUI steps: the GC if it is due, then one quantum for every program.
+    // A round where every program is blocked is not a step: nothing is logged or counted, and
+    // false is returned.
+    public boolean runRound() throws MyException {
         MyIList<PrgState> prgList = removeCompletedPrg(repo.getProgramList());
-        while (prgList.size() > 0) {
-            synchronized (repo) {
-                // Garbage collector
-                MyIHeap<Integer, Value> heap = repo.getProgramList().get(0).getHeap();
-                heap = conservativeGarbageCollector(prgList, heap);
-                for (PrgState prg: prgList) { prg.setHeap(heap); }
+        synchronized (repo) {
+            collectGarbage(repo.getProgramList());
+        }
+        replaying = checkpoints != null && checkpoints.isReplaying();
+        boolean ran;
+        try {
+            ran = oneStepForAllPrg(prgList);
+        } finally {
+            replaying = false;
+        }
+        if (ran && checkpoints != null) checkpoints.stepped(repo.getProgramList());
+        return ran;
+    }
+
+    // Checkpoints the programs every interval rounds of runRound, within about memoryBudget
+    // bytes, so goToStep can go back. Takes the checkpoint of round 0.
+    public void enableCheckpoints(int interval, long memoryBudget) {
+        checkpoints = new CheckpointManager(interval, memoryBudget);
+        checkpoints.start(repo.getProgramList());
+    }
+
+    public CheckpointManager getCheckpoints() { return checkpoints; }
+
+    // Brings the programs to their state after the given number of rounds. Going back restores
+    // the closest checkpoint before it and runs only the rounds after that checkpoint; a
+    // program that races on the heap can end up in another of its possible states.
+    public void goToStep(int step) throws MyException {
+        if (checkpoints == null) throw new IllegalStateException("Checkpoints are not enabled");
+        step = Math.max(step, 0);
+        if (step < checkpoints.getStep()) {
+            Checkpoint checkpoint = checkpoints.nearest(step);
+            MyIList<PrgState> restored = checkpoints.restore(checkpoint);
+            closeFiles(repo.getProgramList(), restored);
+            repo.setProgramList(restored);
+            if (!restored.isEmpty()) {
+                // the policy and the quota count from the restored heap
+                MyIHeap<Integer, Value> heap = restored.get(0).getHeap();
+                garbageCollector.getPolicy().collected(heap);
+                if (heapQuota != null) heapQuota.count(heap);
             }
-            oneStepForAllPrg(prgList);
-            prgList = removeCompletedPrg(repo.getProgramList());
         }
-        executor.shutdownNow();
+        while (checkpoints.getStep() < step && !removeCompletedPrg(repo.getProgramList()).isEmpty()) {
+            if (!runRound()) break;
+        }
+    }
+
+    // the readers of the rounds that are left are not read again, the restored programs have their own
+    private static void closeFiles(MyIList<PrgState> left, MyIList<PrgState> restored) {
+        Set<BufferedReader> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PrgState prg : restored) { kept.addAll(prg.getFileTable().values()); }
+        for (PrgState prg : left) {
+            for (BufferedReader reader : prg.getFileTable().values()) {
+                if (!kept.add(reader)) continue;
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // nothing reads it any more
+                }
+            }
+        }
+    }
+
+    public void stepBack() throws MyException {
+        if (checkpoints == null) throw new IllegalStateException("Checkpoints are not enabled");
+        goToStep(checkpoints.getStep() - 1);
+    }
+
+    // Saves the run to a file between two rounds, Repository.resume reads it back for a new
+    // controller. The heap is collected first so that only its live cells are written.
+    public void suspend(String path) throws MyException {
+        MyIList<PrgState> prgList = removeCompletedPrg(repo.getProgramList());
+        if (!prgList.isEmpty()) {
+            MyIHeap<Integer, Value> heap = prgList.get(0).getHeap();
+            garbageCollector.collect(prgList, heap, true);
+            if (heapQuota != null) heapQuota.collected(heap);
+        }
         repo.setProgramList(prgList);
+        repo.suspend(path);
+    }
+
+    // returns once the log of the run is written
+    public void executeAllSteps() throws MyException {
+        try {
+            getScheduler().run(removeCompletedPrg(repo.getProgramList()));
+        } finally {
+            garbageCollector.shutdown();
+            repo.flushLog();
+        }
     }
 
     public MyIList<PrgState> removeCompletedPrg(MyIList<PrgState> inPrgList) {
@@ -124,6 +311,34 @@ public class Controller {
                 .collect(Collectors.toCollection(MyList::new));
     }
 
+    public int getQuantum() { return quantum; }
+    public void setQuantum(int quantum) {
+        if (quantum < 1) throw new IllegalArgumentException("Quantum must be at least 1");
+        this.quantum = quantum;
+    }
+
+    // lockstep unless another scheduler was chosen
+    public IScheduler getScheduler() {
+        if (scheduler == null) scheduler = new LockstepScheduler(this);
+        return scheduler;
+    }
+    public void setScheduler(IScheduler scheduler) { this.scheduler = scheduler; }
+    public void setSchedulerMode(SchedulerMode mode) {
+        switch (mode) {
+            case WORK_STEALING: scheduler = new WorkStealingScheduler(this); break;
+            case VIRTUAL_THREADS: scheduler = new VirtualThreadScheduler(this); break;
+            default: scheduler = new LockstepScheduler(this);
+        }
+    }
+    public GcPolicy getGcPolicy() { return garbageCollector.getPolicy(); }
+    public void setGcPolicy(GcPolicy policy) { garbageCollector.setPolicy(policy); }
+    public GcStats getGcStats() { return garbageCollector.getStats(); }
+    // threads marking the heap, 1 marks on the scheduler thread
+    public int getGcParallelism() { return garbageCollector.getParallelism(); }
+    public void setGcParallelism(int threads) { garbageCollector.setParallelism(threads); }
+    // metrics of the lockstep rounds (oneStepForAllPrg)
+    public SchedulerStats getStats() { return stats; }
+
     public IRepository getRepo() { return repo; }
     public void setRepo(IRepository r) { repo = r; }
 }
@@ -0,0 +1,11 @@
+package com.example.controller;
+
+import com.example.collections.list.MyIList;
+import com.example.model.PrgState;
+import com.example.model.exceptions.MyException;
+
+public interface IScheduler {
+    // runs the programs (and everything they fork) until all of them are completed
+    void run(MyIList<PrgState> prgList) throws MyException;
+    SchedulerStats getStats();
+}
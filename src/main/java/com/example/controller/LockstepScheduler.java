@@ -0,0 +1,43 @@
+package com.example.controller;
+
+import com.example.collections.list.MyIList;
+import com.example.model.PrgState;
+import com.example.model.exceptions.MyException;
+
+// All the programs move one quantum per round on a fixed pool; the GC policy is asked between rounds.
+public class LockstepScheduler implements IScheduler {
+    private final Controller controller;
+    private final int threads;
+
+    public LockstepScheduler(Controller controller) {
+        this(controller, 2);
+    }
+
+    public LockstepScheduler(Controller controller, int threads) {
+        this.controller = controller;
+        this.threads = threads;
+    }
+
+    @Override
+    public void run(MyIList<PrgState> prgList) throws MyException {
+        long start = System.nanoTime();
+        controller.startExecutor(threads);
+        try {
+            while (prgList.size() > 0) {
+                synchronized (controller.getRepo()) {
+                    // Garbage collector
+                    controller.collectGarbage(prgList);
+                }
+                controller.oneStepForAllPrg(prgList);
+                prgList = controller.removeCompletedPrg(controller.getRepo().getProgramList());
+            }
+        } finally {
+            controller.executor.shutdownNow();
+            controller.getStats().addElapsedNanos(System.nanoTime() - start);
+        }
+        controller.getRepo().setProgramList(prgList);
+    }
+
+    @Override
+    public SchedulerStats getStats() { return controller.getStats(); }
+}
@@ -0,0 +1,47 @@
+package com.example.controller;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class SchedulerStats {
+    private final LongAdder steps;
+    private final LongAdder busyNanos;
+    // times a blocked program was taken off the threads until a release woke it
+    private final LongAdder parks;
+    // slots of blocked programs the lockstep rounds skipped, each one a step busy-waiting used to take
+    private final LongAdder skippedSteps;
+    private volatile int parallelism;
+    private volatile long steals;
+    private volatile long elapsedNanos;
+
+    public SchedulerStats(int parallelism) {
+        this.steps = new LongAdder();
+        this.busyNanos = new LongAdder();
+        this.parks = new LongAdder();
+        this.skippedSteps = new LongAdder();
+        this.parallelism = parallelism;
+    }
+
+    public void addSteps(long n) { steps.add(n); }
+    public void addBusyNanos(long nanos) { busyNanos.add(nanos); }
+    public void addPark() { parks.increment(); }
+    public void addSkippedSteps(long n) { skippedSteps.add(n); }
+    public void setSteals(long steals) { this.steals = steals; }
+    public void addElapsedNanos(long nanos) { elapsedNanos += nanos; }
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+
+    public long getSteps() { return steps.sum(); }
+    public long getSteals() { return steals; }
+    public long getParks() { return parks.sum(); }
+    public long getSkippedSteps() { return skippedSteps.sum(); }
+    public long getBusyNanos() { return busyNanos.sum(); }
+    public long getElapsedNanos() { return elapsedNanos; }
+    // time the worker threads were alive but had no program to run
+    public long getIdleNanos() { return Math.max(0, elapsedNanos * parallelism - busyNanos.sum()); }
+
+    @Override
+    public String toString() {
+        return "steps=" + getSteps() + ", skipped=" + getSkippedSteps() + ", parks=" + getParks()
+                + ", steals=" + getSteals() + ", idle=" + getIdleNanos() / 1_000_000 + "ms"
+                + ", elapsed=" + elapsedNanos / 1_000_000 + "ms, threads=" + parallelism;
+    }
+}
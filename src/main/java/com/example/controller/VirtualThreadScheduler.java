@@ -0,0 +1,37 @@
+package com.example.controller;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+import com.example.model.PrgState;
+
+// Every program runs on its own virtual thread, forked programs get a new one. The JVM
+// multiplexes them over a few carrier threads, so there is no pool to size.
+public class VirtualThreadScheduler extends ConcurrentScheduler {
+    private final ThreadFactory factory;
+
+    public VirtualThreadScheduler(Controller controller) {
+        this(controller, DEFAULT_QUANTUM);
+    }
+
+    public VirtualThreadScheduler(Controller controller, int quantum) {
+        super(controller, Runtime.getRuntime().availableProcessors(), quantum);
+        this.factory = Thread.ofVirtual().name("prg-", 0).factory();
+    }
+
+    @Override
+    protected void start(PrgState prg) {
+        factory.newThread(() -> {
+            Thread self = Thread.currentThread();
+            while (runQuantum(prg)) {
+                // a blocked program parks its virtual thread, freeing the carrier, until a release wakes it
+                if (parkIfBlocked(prg, () -> LockSupport.unpark(self))) {
+                    while (prg.isBlocked()) LockSupport.park(prg);
+                }
+            }
+        }).start();
+    }
+
+    @Override
+    protected void shutdown() {}
+}
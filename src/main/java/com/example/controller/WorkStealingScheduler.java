@@ -0,0 +1,52 @@
+package com.example.controller;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.example.model.PrgState;
+
+// Every program is a fork/join task that runs a quantum of statements and then forks its
+// own continuation, so a slow program never holds the others back. Forked programs are
+// pushed straight into the pool, idle workers steal them.
+public class WorkStealingScheduler extends ConcurrentScheduler {
+    private final int parallelism;
+    // pool of the current run, shut down at its end
+    private volatile ForkJoinPool pool;
+
+    public WorkStealingScheduler(Controller controller) {
+        this(controller, Runtime.getRuntime().availableProcessors(), DEFAULT_QUANTUM);
+    }
+
+    public WorkStealingScheduler(Controller controller, int parallelism, int quantum) {
+        super(controller, parallelism, quantum);
+        this.parallelism = parallelism;
+    }
+
+    @SuppressWarnings("serial")
+    private class ProgramTask extends RecursiveAction {
+        private final PrgState prg;
+
+        ProgramTask(PrgState prg) { this.prg = prg; }
+
+        @Override
+        protected void compute() {
+            if (runQuantum(prg) && !parkIfBlocked(prg, () -> start(prg))) { new ProgramTask(prg).fork(); }
+        }
+    }
+
+    @Override
+    protected void start(PrgState prg) {
+        if (ForkJoinTask.inForkJoinPool()) { new ProgramTask(prg).fork(); }
+        else { pool.execute(new ProgramTask(prg)); }
+    }
+
+    @Override
+    protected void startUp() { pool = new ForkJoinPool(parallelism); }
+
+    @Override
+    protected void shutdown() { pool.shutdown(); }
+
+    @Override
+    protected long getStealCount() { return pool == null ? 0 : pool.getStealCount(); }
+}
@@ -0,0 +1,116 @@
+package com.example.controller.checkpoint;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.example.collections.dictionary.MyDictionary;
+import com.example.collections.dictionary.MyIDictionary;
+import com.example.collections.heap.HeapQuota;
+import com.example.collections.heap.MyIHeap;
+import com.example.collections.list.MyIList;
+import com.example.collections.list.MyList;
+import com.example.model.PrgState;
+import com.example.model.exceptions.MyException;
+import com.example.model.statements.file.OpenFileStmt;
+import com.example.model.states.countSemaphore.ISemaphoreTable;
+import com.example.model.values.StringValue;
+import com.example.model.values.Value;
+
+// The programs of a run after some number of rounds. They are copies nobody runs: restore
+// hands out new copies of them, so the same checkpoint can be restored any number of times.
+// The run keeps reading its files after the checkpoint, so the checkpoint keeps the line every
+// open file was at, and restore opens the files again at those lines.
+public class Checkpoint {
+    private final int step;
+    private final MyIList<PrgState> programs;
+    // for every file table of the programs, the lines its readers were at, by file
+    private final Map<MyIDictionary<StringValue, BufferedReader>, Map<StringValue, Integer>> filePositions;
+    private final long estimatedBytes;
+
+    // what a copied program and an output value cost, the heap cells are counted like in HeapQuota
+    private static final int PROGRAM_BYTES = 256;
+    private static final int VALUE_BYTES = 16;
+
+    public Checkpoint(int step, MyIList<PrgState> prgList) {
+        this.step = step;
+        this.programs = copy(prgList);
+        this.filePositions = new IdentityHashMap<>();
+        for (PrgState prg : programs) {
+            if (!filePositions.containsKey(prg.getFileTable())) filePositions.put(prg.getFileTable(), positions(prg.getFileTable()));
+        }
+        long bytes = (long) programs.size() * PROGRAM_BYTES;
+        if (!programs.isEmpty()) {
+            PrgState first = programs.get(0);
+            bytes += (long) first.getHeap().size() * HeapQuota.CELL_BYTES + (long) first.getOut().size() * VALUE_BYTES;
+        }
+        estimatedBytes = bytes;
+    }
+
+    // The programs of a run share one heap, one out list and one semaphore table, which are
+    // copied once; the stacks and symbol tables are only copied once someone changes them.
+    private static MyIList<PrgState> copy(MyIList<PrgState> prgList) {
+        MyIList<PrgState> copies = new MyList<>();
+        if (prgList.isEmpty()) return copies;
+        PrgState first = prgList.get(0);
+        MyIList<Value> out = new MyList<>(new ArrayList<>(first.getOut().toList()));
+        MyIHeap<Integer, Value> heap = first.getHeap().clone();
+
+        Map<PrgState, PrgState> byOriginal = new HashMap<>();
+        for (PrgState prg : prgList) {
+            PrgState copy = prg.copy(out, heap, null);
+            byOriginal.put(prg, copy);
+            copies.add(copy);
+        }
+        ISemaphoreTable semaphores = first.getSemaphoreTable().copy(byOriginal);
+        for (PrgState copy : copies) { copy.setSemaphoreTable(semaphores); }
+        return copies;
+    }
+
+    // a reader that doesn't count its lines can't be opened again, it is left shared (-1)
+    private static Map<StringValue, Integer> positions(MyIDictionary<StringValue, BufferedReader> fileTable) {
+        Map<StringValue, Integer> positions = new LinkedHashMap<>();
+        for (Map.Entry<StringValue, BufferedReader> file : fileTable.entrySet()) {
+            positions.put(file.getKey(), file.getValue() instanceof LineNumberReader reader ? reader.getLineNumber() : -1);
+        }
+        return positions;
+    }
+
+    // New programs to run on from this checkpoint, with their files opened again at the lines
+    // they were at. Programs that shared a file table share the new one.
+    public MyIList<PrgState> restore() throws MyException {
+        MyIList<PrgState> restored = copy(programs);
+        Map<MyIDictionary<StringValue, BufferedReader>, MyIDictionary<StringValue, BufferedReader>> reopened = new IdentityHashMap<>();
+        for (PrgState prg : restored) {
+            MyIDictionary<StringValue, BufferedReader> fileTable = reopened.get(prg.getFileTable());
+            if (fileTable == null) {
+                fileTable = reopen(prg.getFileTable(), filePositions.get(prg.getFileTable()));
+                reopened.put(prg.getFileTable(), fileTable);
+            }
+            prg.setFileTable(fileTable);
+        }
+        return restored;
+    }
+
+    private static MyIDictionary<StringValue, BufferedReader> reopen(MyIDictionary<StringValue, BufferedReader> fileTable,
+            Map<StringValue, Integer> positions) throws MyException {
+        MyIDictionary<StringValue, BufferedReader> reopened = new MyDictionary<>();
+        for (Map.Entry<StringValue, Integer> file : positions.entrySet()) {
+            try {
+                reopened.put(file.getKey(), file.getValue() < 0 ? fileTable.get(file.getKey())
+                        : OpenFileStmt.reopen(file.getKey().getValue(), file.getValue()));
+            } catch (IOException e) {
+                throw new MyException("Can't open " + file.getKey() + " again: " + e.getMessage());
+            }
+        }
+        return reopened;
+    }
+
+    public int getStep() { return step; }
+    public long getEstimatedBytes() { return estimatedBytes; }
+}
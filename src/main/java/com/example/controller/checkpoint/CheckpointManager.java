@@ -0,0 +1,98 @@
+package com.example.controller.checkpoint;
+
+import java.util.Iterator;
+import java.util.TreeMap;
+
+import com.example.collections.list.MyIList;
+import com.example.model.PrgState;
+import com.example.model.exceptions.MyException;
+
+// Checkpoints of a run taken every interval rounds, so an earlier round can be shown again by
+// restoring the closest checkpoint before it and running only the rounds after it. When the
+// checkpoints outgrow the memory budget, the interval doubles and the checkpoints that are
+// not on it are dropped: the whole run stays covered, with longer replays.
+public class CheckpointManager {
+    private final TreeMap<Integer, Checkpoint> checkpoints = new TreeMap<>();
+    private int interval;
+    private final long memoryBudget;
+    private long usedBytes;
+    // rounds run since the start, and the most that were ever run before going back
+    private int step;
+    private int latestStep;
+
+    public static final int DEFAULT_INTERVAL = 20;
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    public CheckpointManager() {
+        this(DEFAULT_INTERVAL, DEFAULT_MEMORY_BUDGET);
+    }
+
+    public CheckpointManager(int interval, long memoryBudget) {
+        if (interval < 1) throw new IllegalArgumentException("Checkpoint interval must be at least 1");
+        if (memoryBudget < 1) throw new IllegalArgumentException("Checkpoint memory budget must be at least 1 byte");
+        this.interval = interval;
+        this.memoryBudget = memoryBudget;
+    }
+
+    // the checkpoint of round 0 is always kept, every round can be reached from it
+    public void start(MyIList<PrgState> prgList) {
+        checkpoints.clear();
+        usedBytes = 0;
+        step = latestStep = 0;
+        add(new Checkpoint(0, prgList));
+    }
+
+    // called after every round, with the programs of the run
+    public void stepped(MyIList<PrgState> prgList) {
+        step++;
+        latestStep = Math.max(latestStep, step);
+        if (step % interval == 0) add(new Checkpoint(step, prgList));
+    }
+
+    private void add(Checkpoint checkpoint) {
+        checkpoints.put(checkpoint.getStep(), checkpoint);
+        usedBytes += checkpoint.getEstimatedBytes();
+        while (usedBytes > memoryBudget && checkpoints.size() > 1) {
+            interval *= 2;
+            for (Iterator<Checkpoint> it = checkpoints.values().iterator(); it.hasNext(); ) {
+                Checkpoint c = it.next();
+                if (c.getStep() % interval != 0) {
+                    usedBytes -= c.getEstimatedBytes();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    // the last checkpoint at or before the round
+    public Checkpoint nearest(int step) {
+        return checkpoints.floorEntry(Math.max(step, 0)).getValue();
+    }
+
+    // The programs to run on from the checkpoint. The later checkpoints belong to the future
+    // that is left, they are dropped.
+    public MyIList<PrgState> restore(Checkpoint checkpoint) throws MyException {
+        // first, a file that can't be opened again leaves the run where it was
+        MyIList<PrgState> restored = checkpoint.restore();
+        for (Iterator<Checkpoint> it = checkpoints.tailMap(checkpoint.getStep(), false).values().iterator(); it.hasNext(); ) {
+            usedBytes -= it.next().getEstimatedBytes();
+            it.remove();
+        }
+        step = checkpoint.getStep();
+        return restored;
+    }
+
+    public int getStep() { return step; }
+    // true while the rounds being run were already run (and logged) before going back
+    public boolean isReplaying() { return step < latestStep; }
+    public int getInterval() { return interval; }
+    public long getMemoryBudget() { return memoryBudget; }
+    public long getUsedBytes() { return usedBytes; }
+    public int getCheckpointCount() { return checkpoints.size(); }
+
+    @Override
+    public String toString() {
+        return "step=" + step + ", checkpoints=" + checkpoints.size() + " every " + interval + " steps, memory="
+                + usedBytes / 1024 + "KB / " + memoryBudget / 1024 + "KB";
+    }
+}
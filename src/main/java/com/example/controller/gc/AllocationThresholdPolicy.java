@@ -0,0 +1,48 @@
+package com.example.controller.gc;
+
+import com.example.collections.heap.GenerationalHeap;
+import com.example.collections.heap.MyIHeap;
+import com.example.model.values.Value;
+
+// Collects once enough cells were allocated since the last collection: at least the
+// threshold, and for a big heap enough to grow it by the factor over what survived the
+// last collection, so the work per allocation stays bounded. A program that allocates
+// nothing is never collected. For a generational heap only the young region counts as
+// live, minor collections don't get rarer as the old region grows.
+public class AllocationThresholdPolicy implements GcPolicy {
+    private final int allocationThreshold;
+    private final double growthFactor;
+    private volatile long allocationsAtLastCollection;
+    private volatile int liveAtLastCollection;
+
+    public static final int DEFAULT_ALLOCATION_THRESHOLD = 64;
+    public static final double DEFAULT_GROWTH_FACTOR = 2.0;
+
+    public AllocationThresholdPolicy() {
+        this(DEFAULT_ALLOCATION_THRESHOLD, DEFAULT_GROWTH_FACTOR);
+    }
+
+    public AllocationThresholdPolicy(int allocationThreshold, double growthFactor) {
+        if (allocationThreshold < 1) throw new IllegalArgumentException("Allocation threshold must be at least 1");
+        if (growthFactor <= 1) throw new IllegalArgumentException("Growth factor must be greater than 1");
+        this.allocationThreshold = allocationThreshold;
+        this.growthFactor = growthFactor;
+    }
+
+    @Override
+    public boolean shouldCollect(MyIHeap<Integer, Value> heap) {
+        long allocated = heap.getAllocationCount() - allocationsAtLastCollection;
+        return allocated >= Math.max(allocationThreshold, liveAtLastCollection * (growthFactor - 1));
+    }
+
+    @Override
+    public void collected(MyIHeap<Integer, Value> heap) {
+        allocationsAtLastCollection = heap.getAllocationCount();
+        liveAtLastCollection = heap instanceof GenerationalHeap ? ((GenerationalHeap<Value>) heap).youngSize() : heap.size();
+    }
+
+    @Override
+    public String toString() {
+        return "every " + allocationThreshold + " allocations or " + growthFactor + "x heap growth";
+    }
+}
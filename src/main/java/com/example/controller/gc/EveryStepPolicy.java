@@ -0,0 +1,16 @@
+package com.example.controller.gc;
+
+import com.example.collections.heap.MyIHeap;
+import com.example.model.values.Value;
+
+// Collects before every scheduling round, the heap never shows unreachable cells.
+public class EveryStepPolicy implements GcPolicy {
+    @Override
+    public boolean shouldCollect(MyIHeap<Integer, Value> heap) { return true; }
+
+    @Override
+    public void collected(MyIHeap<Integer, Value> heap) {}
+
+    @Override
+    public String toString() { return "every step"; }
+}
@@ -0,0 +1,242 @@
+package com.example.controller.gc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.example.collections.heap.ConcurrentMarkingHeap;
+import com.example.collections.heap.GenerationalHeap;
+import com.example.collections.heap.MyIHeap;
+import com.example.model.PrgState;
+import com.example.model.values.RefValue;
+import com.example.model.values.Value;
+
+// Mark and sweep over the shared heap. The roots are the references in the symbol tables
+// of the programs; every heap cell is visited at most once, so a collection is linear in
+// the number of live cells plus the size of the heap. A generational heap gets a minor
+// collection of its young region, and a full one only when its old region grew enough.
+// A concurrent marking heap is marked and swept by a background thread; the programs only
+// stop for the root scan that starts a cycle and for the remark that ends the marking.
+public class GarbageCollector {
+    private GcPolicy policy;
+    private final GcStats stats;
+    // background marking or sweeping of the current cycle, null when no cycle runs
+    private Thread worker;
+    private boolean sweeping;
+    private volatile long backgroundNanos;
+    private volatile int sweptCells;
+    private long pauseNanos;
+    // marks big heaps and many programs on a fork/join pool, null marks on the calling thread
+    private ParallelMarker parallelMarker;
+
+    // below these the fork/join overhead is bigger than the marking itself
+    public static final int PARALLEL_MIN_PROGRAMS = 32;
+    public static final int PARALLEL_MIN_HEAP_SIZE = 4096;
+
+    public GarbageCollector() {
+        this(new AllocationThresholdPolicy());
+    }
+
+    public GarbageCollector(GcPolicy policy) {
+        this.policy = policy;
+        this.stats = new GcStats();
+        setParallelism(Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getParallelism() { return parallelMarker == null ? 1 : parallelMarker.getParallelism(); }
+    public void setParallelism(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        if (parallelMarker != null) parallelMarker.shutdown();
+        parallelMarker = threads == 1 ? null : new ParallelMarker(threads);
+    }
+
+    // stops the marking threads once the run is over, the next parallel mark starts them again
+    public void shutdown() {
+        if (parallelMarker != null) parallelMarker.shutdown();
+    }
+
+    // true if collectIfNeeded would do some work: move a concurrent cycle on, or collect
+    public boolean isDue(MyIHeap<Integer, Value> heap) {
+        if (heap instanceof ConcurrentMarkingHeap && ((ConcurrentMarkingHeap<Integer, Value>) heap).isCollecting()) {
+            return !worker.isAlive();
+        }
+        return policy.shouldCollect(heap);
+    }
+
+    // Collects only if the policy asks for it. Returns true if a collection ended.
+    public boolean collectIfNeeded(Iterable<PrgState> prgList, MyIHeap<Integer, Value> heap) {
+        if (heap instanceof ConcurrentMarkingHeap) {
+            ConcurrentMarkingHeap<Integer, Value> concurrent = (ConcurrentMarkingHeap<Integer, Value>) heap;
+            if (concurrent.isCollecting()) {
+                if (worker.isAlive()) return false;
+                if (!sweeping) {
+                    remark(concurrent);
+                    return false;
+                }
+                endCycle(concurrent);
+                return true;
+            }
+            if (policy.shouldCollect(heap)) startCycle(prgList, concurrent);
+            return false;
+        }
+
+        if (!policy.shouldCollect(heap)) return false;
+        collect(prgList, heap);
+        return true;
+    }
+
+    // The programs are stopped: shades the roots and leaves the tracing to a background thread.
+    public void startCycle(Iterable<PrgState> prgList, ConcurrentMarkingHeap<Integer, Value> heap) {
+        long start = System.nanoTime();
+        heap.startMarking();
+        for (PrgState prg : prgList) {
+            for (Value v : prg.getSymTable().values()) { heap.shade(v); }
+        }
+        sweeping = false;
+        backgroundNanos = 0;
+        pauseNanos = System.nanoTime() - start;
+        worker = startWorker("gc-marker", () -> heap.drain());
+    }
+
+    // The programs are stopped: marks what the barrier shaded during the background marking,
+    // then the sweep goes to a background thread.
+    public void remark(ConcurrentMarkingHeap<Integer, Value> heap) {
+        long start = System.nanoTime();
+        heap.finishMarking();
+        sweeping = true;
+        pauseNanos += System.nanoTime() - start;
+        worker = startWorker("gc-sweeper", () -> sweptCells = heap.sweep());
+    }
+
+    public int endCycle(ConcurrentMarkingHeap<Integer, Value> heap) {
+        heap.endCollection();
+        worker = null;
+        stats.record(sweptCells, pauseNanos, true);
+        stats.recordConcurrentMark(backgroundNanos);
+        policy.collected(heap);
+        return sweptCells;
+    }
+
+    private Thread startWorker(String name, Runnable work) {
+        return Thread.ofPlatform().daemon().name(name).start(() -> {
+            long start = System.nanoTime();
+            work.run();
+            backgroundNanos += System.nanoTime() - start;
+        });
+    }
+
+    private void await(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Removes the unreachable cells from the heap in place and returns how many were freed.
+    public int collect(Iterable<PrgState> prgList, MyIHeap<Integer, Value> heap) {
+        return collect(prgList, heap, false);
+    }
+
+    // full also collects the old region of a generational heap, whatever its growth
+    public int collect(Iterable<PrgState> prgList, MyIHeap<Integer, Value> heap, boolean full) {
+        if (heap instanceof ConcurrentMarkingHeap) {
+            ConcurrentMarkingHeap<Integer, Value> concurrent = (ConcurrentMarkingHeap<Integer, Value>) heap;
+            int freed = 0;
+            // a cycle already running keeps everything allocated since it started, a full collection runs one more
+            if (concurrent.isCollecting()) {
+                freed = finishCycle(concurrent);
+                if (!full) return freed;
+            }
+            startCycle(prgList, concurrent);
+            return freed + finishCycle(concurrent);
+        }
+
+        long start = System.nanoTime();
+        int freed;
+        if (heap instanceof GenerationalHeap) {
+            GenerationalHeap<Value> generational = (GenerationalHeap<Value>) heap;
+            freed = collectYoung(prgList, generational);
+            full = full || generational.needsMajorCollection();
+            if (full) freed += generational.retainAll(mark(prgList, heap));
+        } else {
+            freed = sweep(heap, mark(prgList, heap));
+            full = true;
+        }
+        stats.record(freed, System.nanoTime() - start, full);
+        policy.collected(heap);
+        return freed;
+    }
+
+    private int finishCycle(ConcurrentMarkingHeap<Integer, Value> heap) {
+        await(worker);
+        if (!sweeping) {
+            remark(heap);
+            await(worker);
+        }
+        return endCycle(heap);
+    }
+
+    // Minor collection: traces only young cells, starting from the symbol tables and from
+    // the old cells written since the last one, then promotes the survivors.
+    public int collectYoung(Iterable<PrgState> prgList, GenerationalHeap<Value> heap) {
+        Set<Integer> marked = new HashSet<>();
+        Deque<Integer> worklist = new ArrayDeque<>();
+
+        for (PrgState prg : prgList) {
+            for (Value v : prg.getSymTable().values()) { shadeYoung(v, heap, marked, worklist); }
+        }
+        for (Integer address : heap.getRemembered()) { shadeYoung(heap.get(address), heap, marked, worklist); }
+
+        while (!worklist.isEmpty()) {
+            shadeYoung(heap.get(worklist.pop()), heap, marked, worklist);
+        }
+        return heap.promote(marked);
+    }
+
+    private void shadeYoung(Value v, GenerationalHeap<Value> heap, Set<Integer> marked, Deque<Integer> worklist) {
+        if (!(v instanceof RefValue)) return;
+        int address = ((RefValue) v).getAddress();
+        if (heap.isYoung(address) && marked.add(address)) worklist.push(address);
+    }
+
+    public Set<Integer> mark(Iterable<PrgState> prgList, MyIHeap<Integer, Value> heap) {
+        if (parallelMarker != null) {
+            List<PrgState> roots = new ArrayList<>();
+            prgList.forEach(roots::add);
+            if (roots.size() >= PARALLEL_MIN_PROGRAMS || heap.size() >= PARALLEL_MIN_HEAP_SIZE) {
+                return parallelMarker.mark(roots, heap, heap.getAllocator().getHighestAddress());
+            }
+        }
+
+        Set<Integer> marked = new HashSet<>();
+        Deque<Integer> worklist = new ArrayDeque<>();
+
+        for (PrgState prg : prgList) {
+            for (Value v : prg.getSymTable().values()) { shade(v, marked, worklist); }
+        }
+
+        // an address is pushed only the first time it is marked, so each cell is scanned once
+        while (!worklist.isEmpty()) {
+            shade(heap.get(worklist.pop()), marked, worklist);
+        }
+        return marked;
+    }
+
+    private void shade(Value v, Set<Integer> marked, Deque<Integer> worklist) {
+        if (!(v instanceof RefValue)) return;
+        int address = ((RefValue) v).getAddress();
+        if (marked.add(address)) worklist.push(address);
+    }
+
+    public GcPolicy getPolicy() { return policy; }
+    public void setPolicy(GcPolicy policy) { this.policy = policy; }
+    public GcStats getStats() { return stats; }
+
+    public int sweep(MyIHeap<Integer, Value> heap, Set<Integer> marked) {
+        return heap.retainAll(marked);
+    }
+}
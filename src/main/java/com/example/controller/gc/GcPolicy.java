@@ -0,0 +1,11 @@
+package com.example.controller.gc;
+
+import com.example.collections.heap.MyIHeap;
+import com.example.model.values.Value;
+
+// Decides when the schedulers run the garbage collector.
+public interface GcPolicy {
+    boolean shouldCollect(MyIHeap<Integer, Value> heap);
+    // called after every collection, with the heap holding only the live cells
+    void collected(MyIHeap<Integer, Value> heap);
+}
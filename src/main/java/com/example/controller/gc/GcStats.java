@@ -0,0 +1,42 @@
+package com.example.controller.gc;
+
+// Cumulative numbers of a garbage collector, updated after every collection.
+public class GcStats {
+    private long collections;
+    // collections of the whole heap, the others were minor collections of a young region
+    private long fullCollections;
+    private long cellsFreed;
+    private long totalNanos;
+    private long lastPauseNanos;
+    private long maxPauseNanos;
+    // time background threads spent marking and sweeping while the programs ran, not part of the pauses
+    private long concurrentMarkNanos;
+
+    public synchronized void record(int freed, long pauseNanos, boolean full) {
+        collections++;
+        if (full) fullCollections++;
+        cellsFreed += freed;
+        totalNanos += pauseNanos;
+        lastPauseNanos = pauseNanos;
+        maxPauseNanos = Math.max(maxPauseNanos, pauseNanos);
+    }
+
+    public synchronized void recordConcurrentMark(long nanos) {
+        concurrentMarkNanos += nanos;
+    }
+
+    public synchronized long getCollections() { return collections; }
+    public synchronized long getFullCollections() { return fullCollections; }
+    public synchronized long getCellsFreed() { return cellsFreed; }
+    public synchronized long getTotalNanos() { return totalNanos; }
+    public synchronized long getLastPauseNanos() { return lastPauseNanos; }
+    public synchronized long getMaxPauseNanos() { return maxPauseNanos; }
+    public synchronized long getConcurrentMarkNanos() { return concurrentMarkNanos; }
+
+    @Override
+    public synchronized String toString() {
+        return "collections=" + collections + " (" + fullCollections + " full), freed=" + cellsFreed + ", total=" + totalNanos / 1000 + "us"
+                + ", last pause=" + lastPauseNanos / 1000 + "us, max pause=" + maxPauseNanos / 1000 + "us"
+                + ", concurrent mark=" + concurrentMarkNanos / 1000 + "us";
+    }
+}
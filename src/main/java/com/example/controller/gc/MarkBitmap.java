@@ -0,0 +1,76 @@
+package com.example.controller.gc;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Set of marked heap addresses, one bit per address. Marking an address is a single CAS,
+// so any number of threads can mark at once and exactly one of them wins each address.
+public class MarkBitmap extends AbstractSet<Integer> {
+    private final AtomicLongArray words;
+
+    // addresses from 0 to maxAddress can be marked
+    public MarkBitmap(int maxAddress) {
+        words = new AtomicLongArray((maxAddress >> 6) + 1);
+    }
+
+    // returns true if the address was not marked before
+    public boolean mark(int address) {
+        int i = address >> 6;
+        long bit = 1L << (address & 63);
+        long w;
+        do {
+            w = words.get(i);
+            if ((w & bit) != 0) return false;
+        } while (!words.compareAndSet(i, w, w | bit));
+        return true;
+    }
+
+    public boolean isMarked(int address) {
+        int i = address >> 6;
+        return i >= 0 && i < words.length() && (words.get(i) & (1L << (address & 63))) != 0;
+    }
+
+    @Override
+    public boolean add(Integer address) { return mark(address); }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && isMarked((Integer) o);
+    }
+
+    @Override
+    public int size() {
+        int n = 0;
+        for (int i = 0; i < words.length(); i++) n += Long.bitCount(words.get(i));
+        return n;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                for (int i = from >> 6; i < words.length(); i++) {
+                    long w = words.get(i);
+                    if (i == from >> 6) w &= -1L << (from & 63);
+                    if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean hasNext() { return next >= 0; }
+
+            @Override
+            public Integer next() {
+                if (next < 0) throw new NoSuchElementException();
+                int crt = next;
+                next = crt + 1 < (words.length() << 6) ? advance(crt + 1) : -1;
+                return crt;
+            }
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.controller.gc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.example.collections.heap.MyIHeap;
+import com.example.model.PrgState;
+import com.example.model.values.RefValue;
+import com.example.model.values.Value;
+
+// Mark phase on a fork/join pool. The programs are split between tasks that scan their
+// symbol tables; every task then traces from the addresses it marked, handing half of its
+// worklist to a new task when it grows, so idle workers steal the rest of the graph.
+// The programs must be stopped: the heap is only read.
+public class ParallelMarker {
+    private final int parallelism;
+    // started by the first mark, null again once shut down
+    private ForkJoinPool pool;
+
+    // programs scanned by one root task
+    private static final int ROOT_CHUNK = 16;
+    // worklist size over which a trace task gives half of it away
+    private static final int SPLIT = 64;
+
+    public ParallelMarker(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() { return parallelism; }
+
+    public synchronized MarkBitmap mark(List<PrgState> prgList, MyIHeap<Integer, Value> heap, int maxAddress) {
+        MarkBitmap marked = new MarkBitmap(maxAddress);
+        if (pool == null) pool = new ForkJoinPool(parallelism);
+        pool.invoke(new RootTask(prgList, 0, prgList.size(), heap, marked));
+        return marked;
+    }
+
+    // stops the threads of the pool, a later mark starts new ones
+    public synchronized void shutdown() {
+        if (pool == null) return;
+        pool.shutdown();
+        pool = null;
+    }
+
+    @SuppressWarnings("serial")
+    private static class RootTask extends RecursiveAction {
+        private final List<PrgState> prgList;
+        private final int from, to;
+        private final MyIHeap<Integer, Value> heap;
+        private final MarkBitmap marked;
+
+        RootTask(List<PrgState> prgList, int from, int to, MyIHeap<Integer, Value> heap, MarkBitmap marked) {
+            this.prgList = prgList;
+            this.from = from;
+            this.to = to;
+            this.heap = heap;
+            this.marked = marked;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROOT_CHUNK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RootTask(prgList, from, mid, heap, marked), new RootTask(prgList, mid, to, heap, marked));
+                return;
+            }
+            Deque<Integer> work = new ArrayDeque<>();
+            for (int i = from; i < to; i++) {
+                for (Value v : prgList.get(i).getSymTable().values()) { TraceTask.shade(v, marked, work); }
+            }
+            new TraceTask(work, heap, marked).compute();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class TraceTask extends RecursiveAction {
+        private final Deque<Integer> work;
+        private final MyIHeap<Integer, Value> heap;
+        private final MarkBitmap marked;
+
+        TraceTask(Deque<Integer> work, MyIHeap<Integer, Value> heap, MarkBitmap marked) {
+            this.work = work;
+            this.heap = heap;
+            this.marked = marked;
+        }
+
+        static void shade(Value v, MarkBitmap marked, Deque<Integer> work) {
+            if (!(v instanceof RefValue)) return;
+            if (marked.mark(((RefValue) v).getAddress())) work.push(((RefValue) v).getAddress());
+        }
+
+        @Override
+        protected void compute() {
+            List<TraceTask> forked = new ArrayList<>();
+            while (!work.isEmpty()) {
+                if (work.size() > SPLIT) {
+                    Deque<Integer> half = new ArrayDeque<>();
+                    for (int i = work.size() / 2; i > 0; i--) half.push(work.removeLast());
+                    TraceTask task = new TraceTask(half, heap, marked);
+                    task.fork();
+                    forked.add(task);
+                }
+                shade(heap.get(work.pop()), marked, work);
+            }
+            for (TraceTask task : forked) task.join();
+        }
+    }
+}
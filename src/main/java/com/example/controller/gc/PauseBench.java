@@ -0,0 +1,92 @@
+package com.example.controller.gc;
+
+import java.util.Arrays;
+
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyFrame;
+import com.example.collections.heap.GenerationalHeap;
+import com.example.collections.heap.MyHeap;
+import com.example.collections.heap.MyIHeap;
+import com.example.collections.list.MyIList;
+import com.example.collections.list.MyList;
+import com.example.controller.Controller;
+import com.example.model.PrgState;
+import com.example.model.statements.CompoundStmt;
+import com.example.model.statements.IStmt;
+import com.example.model.statements.VarDeclStmt;
+import com.example.model.types.IntType;
+import com.example.model.types.RefType;
+import com.example.model.types.Types;
+import com.example.model.values.IntValue;
+import com.example.model.values.RefValue;
+import com.example.model.values.Value;
+
+// Measures the collection pauses of a mutator with a few long-lived cells and many short-lived
+// ones, on a flat heap or a generational one. One root keeps a chain of live cells; every new
+// cell is only held until the next one, and every 10th is also stored into one cell older
+// than the chain, so the write barrier has work. The collector runs whenever the default
+// allocation policy asks, as between two lockstep rounds. Prints the collections, the full
+// ones, and the average, median and longest pause.
+//
+//   PauseBench [flat|generational] [live] [allocations]   1000 live cells and 200000
+//                                                         allocations by default
+public class PauseBench {
+    public static void main(String[] args) throws Exception {
+        String kind = args.length > 0 ? args[0] : "generational";
+        int live = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int allocations = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        // Ref int head; Ref int bag; Ref int tmp
+        IStmt declarations = new CompoundStmt(new VarDeclStmt("head", new RefType(new IntType())),
+                new CompoundStmt(new VarDeclStmt("bag", new RefType(new IntType())), new VarDeclStmt("tmp", new RefType(new IntType()))));
+        FrameLayout layout = new FrameLayout();
+        declarations.typeCheck(new MyFrame<>(layout));
+        PrgState prg = new PrgState(declarations, layout);
+        while (prg.isNotCompleted()) { prg.oneStep(); }
+        MyIHeap<Integer, Value> heap = switch (kind) {
+            case "flat" -> new MyHeap<Integer, Value>();
+            case "generational" -> new GenerationalHeap<Value>();
+            default -> throw new IllegalArgumentException("Unknown heap " + kind);
+        };
+        prg.setHeap(heap);
+        MyIList<PrgState> programs = new MyList<>();
+        programs.add(prg);
+        Controller controller = new Controller();
+
+        int bag = allocate(heap, new IntValue(0));
+        prg.getSymTable().put("bag", new RefValue(bag, Types.INT));
+        int head = allocate(heap, new IntValue(0));
+        for (int i = 1; i < live; i++) { head = allocate(heap, new RefValue(head, Types.INT)); }
+        prg.getSymTable().put("head", new RefValue(head, Types.INT));
+
+        long[] pauses = new long[allocations];
+        int collections = 0;
+        for (int i = 0; i < allocations; i++) {
+            int address = allocate(heap, new IntValue(i));
+            prg.getSymTable().put("tmp", new RefValue(address, Types.INT));
+            if (i % 10 == 0) {
+                heap.put(bag, new RefValue(address, Types.INT));
+                heap.recordWrite(bag);
+            }
+            long before = controller.getGcStats().getCollections();
+            long start = System.nanoTime();
+            controller.collectGarbage(programs);
+            long pause = System.nanoTime() - start;
+            if (controller.getGcStats().getCollections() > before) pauses[collections++] = pause;
+        }
+
+        long[] sorted = Arrays.copyOf(pauses, collections);
+        Arrays.sort(sorted);
+        GcStats stats = controller.getGcStats();
+        System.out.printf("%-12s live=%d: %d collections (%d full), avg %dus, median %dus, max %.1fms%n", kind, live,
+                collections, stats.getFullCollections(), collections == 0 ? 0 : stats.getTotalNanos() / collections / 1000,
+                collections == 0 ? 0 : sorted[collections / 2] / 1000, collections == 0 ? 0 : sorted[collections - 1] / 1e6);
+    }
+
+    private static int allocate(MyIHeap<Integer, Value> heap, Value value) {
+        int address = heap.getAllocator().allocate();
+        heap.put(address, value);
+        heap.recordAllocation();
+        return address;
+    }
+}
@@ -2,11 +2,16 @@ package com.example.model;
 
 import java.io.BufferedReader;
 
+import com.example.model.bytecode.CompiledProgram;
+import com.example.model.bytecode.OpCode;
+import com.example.model.bytecode.VirtualMachine;
 import com.example.model.exceptions.MyException;
 import com.example.collections.heap.MyIHeap;
 import com.example.collections.list.*;
 import com.example.collections.stack.*;
 import com.example.collections.dictionary.*;
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyFrame;
 import com.example.collections.heap.*;
 import com.example.model.statements.IStmt;
 import com.example.model.states.countSemaphore.*; // ISemaphoreTable
@@ -23,14 +28,29 @@ public class PrgState {
    private MyIHeap<Integer, Value> heap;
    private ISemaphoreTable semaphoreTable;
    private int id;
+   // bytecode mode: code is shared by all the threads, each one has its own pc and operand stack
+   private CompiledProgram code;
+   private int pc;
+   private Value[] operands;
+   // set while the program waits in a semaphore queue, cleared by the release that wakes it
+   private volatile boolean blocked;
+   // how the scheduler resumes the program once it is woken, null while it is not parked
+   private Runnable resume;
+   // addresses reserved from the heap for the new() of this program only
+   private AllocationBuffer addresses = new AllocationBuffer();
+   // budget of the heap shared with the other programs of the run, null for no limit
+   private HeapQuota heapQuota;
+   // the forced collection count when this program asked for one to make room, -1 if it didn't
+   private long collectionAwaited = -1;
 
    private static int prgId = 0;
 
+   // used by fork: the statement is shared with the parent, statements don't change once type checked
    public PrgState(IStmt prg, MyIDictionary<String, Value> symtbl, MyIList<Value> ot, MyIDictionary<StringValue, BufferedReader> fileTbl, MyIHeap<Integer, Value> hp, ISemaphoreTable semTbl) {
       exeStack = new MyStack<IStmt>();
       symTable = symtbl;
       out = ot;
-      originalProgram = prg.deepCopy();
+      originalProgram = prg;
       fileTable = fileTbl;
       heap = hp;
       exeStack.push(prg);
@@ -39,17 +59,65 @@ public class PrgState {
    }
 
    public PrgState(IStmt prg) {
+      this(prg, new FrameLayout());
+   }
+
+   // layout has to be the one the program was type checked with, otherwise variables are looked up by name
+   public PrgState(IStmt prg, FrameLayout layout) {
       exeStack = new MyStack<IStmt>();
-      symTable = new MyDictionary<String, Value>();
+      symTable = new MyFrame<Value>(layout);
       out = new MyList<Value>();
       fileTable = new MyDictionary<StringValue, BufferedReader>();
       heap = new MyHeap<Integer, Value>();
-      semaphoreTable = new SemaphoreTable();
+      semaphoreTable = new ConcurrentSemaphoreTable();
       originalProgram = prg.deepCopy();
       exeStack.push(prg);
       id = getNewId();
    } 
+
+   public PrgState(CompiledProgram code) {
+      this(code, 0, new MyFrame<Value>(code.getLayout()), new MyList<Value>(), new MyDictionary<StringValue, BufferedReader>(), new MyHeap<Integer, Value>(), new ConcurrentSemaphoreTable());
+   }
+
+   public PrgState(CompiledProgram code, int pc, MyIDictionary<String, Value> symtbl, MyIList<Value> ot, MyIDictionary<StringValue, BufferedReader> fileTbl, MyIHeap<Integer, Value> hp, ISemaphoreTable semTbl) {
+      exeStack = new MyStack<IStmt>();
+      symTable = symtbl;
+      out = ot;
+      fileTable = fileTbl;
+      heap = hp;
+      semaphoreTable = semTbl;
+      originalProgram = code.getSource();
+      this.code = code;
+      this.pc = pc;
+      operands = new Value[code.getMaxStack()];
+      id = getNewId();
+   }
    
+   // Copy for a checkpoint, with the same id. The stack and the symbol table are shared until
+   // one of the two programs changes them; out, heap and semaphore table are the copies shared
+   // by all the programs of the checkpoint. The file table is shared too: a reader can't be
+   // rewound, Checkpoint opens the files again when it is restored.
+   private PrgState(PrgState prg, MyIList<Value> ot, MyIHeap<Integer, Value> hp, ISemaphoreTable semTbl) {
+      exeStack = prg.exeStack.snapshot();
+      symTable = prg.symTable.deepCopy();
+      out = ot;
+      fileTable = prg.fileTable;
+      heap = hp;
+      semaphoreTable = semTbl;
+      originalProgram = prg.originalProgram;
+      id = prg.id;
+      code = prg.code;
+      pc = prg.pc;
+      if (prg.operands != null) operands = new Value[prg.operands.length];
+      blocked = prg.blocked;
+      heapQuota = prg.heapQuota;
+      addresses = prg.addresses.copy(hp.getAllocator());
+   }
+
+   public PrgState copy(MyIList<Value> ot, MyIHeap<Integer, Value> hp, ISemaphoreTable semTbl) {
+      return new PrgState(this, ot, hp, semTbl);
+   }
+
    public MyIStack<IStmt> getExeStack() { return exeStack; }
    public MyIDictionary<String, Value> getSymTable() { return symTable; }
    public MyIList<Value> getOut() { return out; }
@@ -58,6 +126,11 @@ public class PrgState {
    public ISemaphoreTable getSemaphoreTable() { return semaphoreTable; }
    public IStmt getOriginalProgram() { return originalProgram; }
    public int getId() { return id; }
+   public CompiledProgram getCode() { return code; }
+   public int getPc() { return pc; }
+   public Value[] getOperands() { return operands; }
+   public boolean isBlocked() { return blocked; }
+   public HeapQuota getHeapQuota() { return heapQuota; }
 
    public void setExeStack(MyIStack<IStmt> stk) { exeStack = stk; }
    public void setSymTable(MyIDictionary<String, Value> symtbl) { symTable = symtbl; }
@@ -66,27 +139,99 @@ public class PrgState {
    public void setHeap(MyIHeap<Integer, Value> hp) { heap = hp; }
    public void setSemaphoreTable(ISemaphoreTable semTbl) { semaphoreTable = semTbl; }
    public void setOriginalProgram(IStmt prg) { originalProgram = prg; }
+   public void setPc(int pc) { this.pc = pc; }
+   public void setBlocked(boolean blocked) { this.blocked = blocked; }
+   public void setHeapQuota(HeapQuota quota) { heapQuota = quota; }
+   // a resumed program takes back the id it was suspended with, semaphores hold programs by id
+   public void setId(int id) {
+      this.id = id;
+      reserveIds(id);
+   }
 
-   public boolean isNotCompleted() { return !exeStack.isEmpty(); }   
+   public boolean isNotCompleted() {
+      if (code != null) return code.get(pc).getOp() != OpCode.HALT;
+      return !exeStack.isEmpty();
+   }
    public static synchronized int getNewId() { return prgId++; }
+   private static synchronized void reserveIds(int id) { prgId = Math.max(prgId, id + 1); }
 
+   // address for a new heap cell, taken from this program's block without locking the heap
+   public int allocateAddress() { return addresses.allocate(heap.getAllocator()); }
+
+   // Room in the heap quota for a new cell holding value, taken before allocateAddress. Returns
+   // false when the quota is used up: a collection is requested and the statement has to run
+   // again after it. Fails if the collection this program waited for didn't make room for it.
+   public boolean reserveCell(Value value) throws MyException {
+      if (heapQuota == null || heapQuota.tryReserve(value)) {
+         collectionAwaited = -1;
+         return true;
+      }
+      if (collectionAwaited >= 0 && heapQuota.getForcedCollections() > collectionAwaited && !heapQuota.fitAfterCollection(value)) {
+         collectionAwaited = -1;
+         throw heapQuota.exceeded();
+      }
+      collectionAwaited = heapQuota.getForcedCollections();
+      heapQuota.requestCollection();
+      return false;
+   }
+
+   // the quantum of the program ends here, it can't go on before the collection
+   public boolean isWaitingForCollection() {
+      return collectionAwaited >= 0 && heapQuota.isCollectionRequested();
+   }
+
+
+   // Called by a scheduler that stopped running the blocked program. Returns false if the
+   // program was woken in the meantime and has to keep running.
+   public synchronized boolean park(Runnable resume) {
+      if (!blocked) return false;
+      this.resume = resume;
+      return true;
+   }
+
+   public void wake() {
+      Runnable r;
+      synchronized (this) {
+         blocked = false;
+         r = resume;
+         resume = null;
+      }
+      if (r != null) r.run();
+   }
 
    public PrgState oneStep() throws MyException {
-      if (exeStack.isEmpty()) { throw new MyException("Program state stack is empty"); }
-      IStmt crtStmt = exeStack.pop();
-      return crtStmt.execute(this);
+      PrgState forked;
+      if (code != null) {
+         forked = VirtualMachine.step(this);
+      } else {
+         if (exeStack.isEmpty()) { throw new MyException("Program state stack is empty"); }
+         IStmt crtStmt = exeStack.pop();
+         forked = crtStmt.execute(this);
+      }
+      // the addresses a finished program didn't use go back to the heap
+      if (!isNotCompleted()) addresses.release();
+      return forked;
    }
 
+   // what the log shows in place of the stack of a bytecode program
+   public String getInstructionText() { return "pc " + pc + ": " + code.get(pc); }
+
    @Override
    public String toString() {
+      return format(id, code == null ? exeStack.toString() : getInstructionText(), symTable.toString(), fileTable.toString(),
+                    heap.toString(), out.toString(), semaphoreTable.toString(), originalProgram.toString());
+   }
+
+   // the log text of a program, TraceReplay prints the programs it rebuilds with it too
+   public static String format(int id, String exeStack, String symTable, String fileTable, String heap, String out, String semaphoreTable, String originalProgram) {
       return "------------------------------------------------------\n" +
              "[ID: " + id + "]\n" +
-             "ExeStack:\n" + exeStack.toString() + "\n" +
-             "SymTable:\n" + symTable.toString() + "\n" +
-             "FileTable:\n" + fileTable.toString() + "\n" +
-             "HeapTable:\n" + heap.toString() + "\n" +
-             "Out:\n" + out.toString() + "\n" +
-             "SemaphoreTable:\n" + semaphoreTable.toString() + "\n" +
-             "Original Program:\n" + originalProgram.toString() + "\n";
+             "ExeStack:\n" + exeStack + "\n" +
+             "SymTable:\n" + symTable + "\n" +
+             "FileTable:\n" + fileTable + "\n" +
+             "HeapTable:\n" + heap + "\n" +
+             "Out:\n" + out + "\n" +
+             "SemaphoreTable:\n" + semaphoreTable + "\n" +
+             "Original Program:\n" + originalProgram + "\n";
    }
 }
\ No newline at end of file
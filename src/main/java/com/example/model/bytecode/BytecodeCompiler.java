@@ -0,0 +1,72 @@
+package com.example.model.bytecode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.FrameSlot;
+import com.example.model.statements.IStmt;
+
+public class BytecodeCompiler {
+    private final List<Instruction> code;
+    // fork bodies are compiled after the main program, each one ends with its own HALT
+    private final Deque<Instruction> pendingForks;
+    private final Deque<IStmt> pendingForkBodies;
+    // every variable of the program gets its slot in the frames of the compiled program
+    private final FrameLayout layout;
+    private final Map<String, FrameSlot> vars;
+    private int depth;
+    private int maxDepth;
+
+    public BytecodeCompiler() {
+        code = new ArrayList<>();
+        pendingForks = new ArrayDeque<>();
+        pendingForkBodies = new ArrayDeque<>();
+        layout = new FrameLayout();
+        vars = new HashMap<>();
+        depth = 0;
+        maxDepth = 0;
+    }
+
+    public static CompiledProgram compile(IStmt program) {
+        BytecodeCompiler compiler = new BytecodeCompiler();
+        program.compile(compiler);
+        compiler.emit(OpCode.HALT);
+
+        while (!compiler.pendingForks.isEmpty()) {
+            Instruction fork = compiler.pendingForks.poll();
+            IStmt body = compiler.pendingForkBodies.poll();
+            fork.setTarget(compiler.label());
+            body.compile(compiler);
+            compiler.emit(OpCode.HALT);
+        }
+
+        return new CompiledProgram(compiler.code.toArray(new Instruction[0]), compiler.maxDepth, program, compiler.layout);
+    }
+
+    public int emit(OpCode op) { return emit(op, null, null); }
+    public int emit(OpCode op, String name) { return emit(op, name, null); }
+
+    public int emit(OpCode op, String name, Object arg) {
+        FrameSlot var = name == null ? null : vars.computeIfAbsent(name, n -> new FrameSlot(n, layout));
+        code.add(new Instruction(op, var, arg, -1));
+        depth += op.getStackEffect();
+        maxDepth = Math.max(maxDepth, depth);
+        return code.size() - 1;
+    }
+
+    // jumps are emitted with an unknown target which is filled in later
+    public void patch(int jump, int target) { code.get(jump).setTarget(target); }
+
+    public void emitFork(IStmt body) {
+        int fork = emit(OpCode.FORK);
+        pendingForks.add(code.get(fork));
+        pendingForkBodies.add(body);
+    }
+
+    public int label() { return code.size(); }
+}
@@ -0,0 +1,33 @@
+package com.example.model.bytecode;
+
+import com.example.collections.frame.FrameLayout;
+import com.example.model.statements.IStmt;
+
+public class CompiledProgram {
+    private final Instruction[] code;
+    private final int maxStack;
+    private final IStmt source;
+    private final FrameLayout layout;
+
+    public CompiledProgram(Instruction[] code, int maxStack, IStmt source, FrameLayout layout) {
+        this.code = code;
+        this.maxStack = maxStack;
+        this.source = source;
+        this.layout = layout;
+    }
+
+    public Instruction get(int pc) { return code[pc]; }
+    public int size() { return code.length; }
+    public int getMaxStack() { return maxStack; }
+    public IStmt getSource() { return source; }
+    public FrameLayout getLayout() { return layout; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < code.length; i++) {
+            sb.append(i).append(": ").append(code[i]).append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.model.bytecode;
+
+import com.example.collections.frame.FrameSlot;
+
+public class Instruction {
+    private final OpCode op;
+    // variable used by the instruction (LOAD_VAR, STORE, DECLARE, ...), resolved to a frame slot
+    private final FrameSlot var;
+    // constant operand: a value, a type, an operation or a statement for EXEC
+    private final Object arg;
+    // jump target or entry point of a forked thread
+    private int target;
+
+    public Instruction(OpCode op, FrameSlot var, Object arg, int target) {
+        this.op = op;
+        this.var = var;
+        this.arg = arg;
+        this.target = target;
+    }
+
+    public OpCode getOp() { return op; }
+    public FrameSlot getVar() { return var; }
+    public Object getArg() { return arg; }
+    public int getTarget() { return target; }
+
+    public void setTarget(int target) { this.target = target; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(op.toString());
+        if (var != null) sb.append(" ").append(var.getName());
+        if (arg != null) sb.append(" ").append(arg);
+        if (op == OpCode.JUMP || op == OpCode.JUMP_IF_FALSE || op == OpCode.FORK) sb.append(" -> ").append(target);
+        return sb.toString();
+    }
+}
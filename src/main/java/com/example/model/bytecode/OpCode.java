@@ -0,0 +1,37 @@
+package com.example.model.bytecode;
+
+public enum OpCode {
+    // expression instructions, they only touch the operand stack
+    PUSH_CONST(1, false),
+    LOAD_VAR(1, false),
+    ARITH(-1, false),
+    COMPARE(-1, false),
+    LOGIC(-1, false),
+    READ_HEAP(0, false),
+
+    // statement instructions, each one of them is a step of the program
+    // EXEC runs a statement with the tree-walking interpreter (files, semaphores)
+    DECLARE(0, true),
+    STORE(-1, true),
+    PRINT(-1, true),
+    NEW_HEAP(-1, true),
+    WRITE_HEAP(-1, true),
+    EXEC(0, true),
+    JUMP_IF_FALSE(-1, true),
+    FORK(0, true),
+
+    // control flow that is not visible as a step
+    JUMP(0, false),
+    HALT(0, false);
+
+    private final int stackEffect;
+    private final boolean endsStep;
+
+    OpCode(int stackEffect, boolean endsStep) {
+        this.stackEffect = stackEffect;
+        this.endsStep = endsStep;
+    }
+
+    public int getStackEffect() { return stackEffect; }
+    public boolean endsStep() { return endsStep; }
+}
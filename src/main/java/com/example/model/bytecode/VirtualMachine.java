@@ -0,0 +1,201 @@
+package com.example.model.bytecode;
+
+import com.example.collections.dictionary.MyIDictionary;
+import com.example.collections.heap.MyIHeap;
+import com.example.collections.stack.MyIStack;
+import com.example.model.PrgState;
+import com.example.model.enums.ArithOperation;
+import com.example.model.enums.CompareOperation;
+import com.example.model.enums.LogicOperation;
+import com.example.model.exceptions.DivisionByZeroException;
+import com.example.model.exceptions.ExpException;
+import com.example.model.exceptions.InvalidAddressException;
+import com.example.model.exceptions.InvalidOperandType;
+import com.example.model.exceptions.MyException;
+import com.example.model.exceptions.StmtException;
+import com.example.model.exceptions.VariableAlreadyDefined;
+import com.example.model.exceptions.VariableNotDefined;
+import com.example.model.statements.IStmt;
+import com.example.model.types.Type;
+import com.example.model.types.Types;
+import com.example.model.values.BoolValue;
+import com.example.model.values.IntValue;
+import com.example.model.values.RefValue;
+import com.example.model.values.Value;
+
+public class VirtualMachine {
+    private VirtualMachine() {}
+
+    // Runs instructions from the current pc until one statement has been executed.
+    // The operand stack is always empty between two steps.
+    public static PrgState step(PrgState prg) throws MyException {
+        CompiledProgram code = prg.getCode();
+        Value[] stack = prg.getOperands();
+        MyIDictionary<String, Value> symTable = prg.getSymTable();
+        MyIHeap<Integer, Value> heap = prg.getHeap();
+        int start = prg.getPc();
+        int pc = start;
+        int sp = 0;
+
+        while (true) {
+            Instruction in = code.get(pc);
+            PrgState forked = null;
+
+            switch (in.getOp()) {
+                case PUSH_CONST:
+                    stack[sp++] = (Value) in.getArg();
+                    break;
+                case LOAD_VAR: {
+                    Value val = in.getVar().get(symTable);
+                    if (val == null) { throw new VariableNotDefined("Variable " + in.getVar() + " is not defined"); }
+                    stack[sp++] = val;
+                    break;
+                }
+                case ARITH: {
+                    Value v2 = stack[--sp];
+                    stack[sp - 1] = arith(stack[sp - 1], v2, (ArithOperation) in.getArg());
+                    break;
+                }
+                case COMPARE: {
+                    Value v2 = stack[--sp];
+                    stack[sp - 1] = compare(stack[sp - 1], v2, (CompareOperation) in.getArg());
+                    break;
+                }
+                case LOGIC: {
+                    Value v2 = stack[--sp];
+                    stack[sp - 1] = logic(stack[sp - 1], v2, (LogicOperation) in.getArg());
+                    break;
+                }
+                case READ_HEAP: {
+                    Value val = stack[sp - 1];
+                    if (!(val instanceof RefValue)) { throw new MyException("Expression " + val + " is not a reference"); }
+                    stack[sp - 1] = heap.getOrFail(((RefValue) val).getAddress());
+                    break;
+                }
+                case DECLARE:
+                    if (in.getVar().get(symTable) != null) { throw new VariableAlreadyDefined("Variable " + in.getVar() + " is already defined"); }
+                    in.getVar().set(symTable, ((Type) in.getArg()).defaultValue());
+                    break;
+                case STORE: {
+                    Value old = in.getVar().get(symTable);
+                    if (old == null) { throw new VariableNotDefined("Variable " + in.getVar() + " is not defined"); }
+                    Value val = stack[--sp];
+                    if (val.getType() != old.getType()) { throw new StmtException("Type of expression does not match type of variable"); }
+                    in.getVar().set(symTable, val);
+                    break;
+                }
+                case PRINT:
+                    prg.getOut().add(stack[--sp]);
+                    break;
+                case NEW_HEAP: {
+                    if (in.getVar().get(symTable) == null) { throw new MyException("Variable " + in.getVar() + " is not defined"); }
+                    Value val = stack[--sp];
+                    // no room in the heap quota: the statement runs again from its start after the collection
+                    if (!prg.reserveCell(val)) {
+                        prg.setPc(start);
+                        return null;
+                    }
+                    int address = prg.allocateAddress();
+                    heap.put(address, val);
+                    heap.recordAllocation();
+                    in.getVar().set(symTable, new RefValue(address, val.getType()));
+                    break;
+                }
+                case WRITE_HEAP: {
+                    Value ref = in.getVar().get(symTable);
+                    if (ref == null) { throw new MyException("Variable " + in.getVar() + " is not defined"); }
+                    if (!(ref instanceof RefValue)) { throw new MyException("Variable " + in.getVar() + " is not a reference"); }
+                    int address = ((RefValue) ref).getAddress();
+                    if (heap.replace(address, stack[--sp]) == null) { throw new InvalidAddressException("Address " + ref + " is not defined in the heap"); }
+                    heap.recordWrite(address);
+                    break;
+                }
+                case EXEC: {
+                    // a statement that pushes itself back (acquire without permits) is retried on the next step
+                    MyIStack<IStmt> exeStack = prg.getExeStack();
+                    forked = ((IStmt) in.getArg()).execute(prg);
+                    if (!exeStack.isEmpty()) {
+                        exeStack.pop();
+                        prg.setPc(pc);
+                        return forked;
+                    }
+                    break;
+                }
+                case JUMP_IF_FALSE: {
+                    Value val = stack[--sp];
+                    if (val.getType() != Types.BOOL) { throw new StmtException("Expression is not a boolean"); }
+                    if (!((BoolValue) val).getValue()) {
+                        prg.setPc(in.getTarget());
+                        return null;
+                    }
+                    break;
+                }
+                case FORK:
+                    forked = new PrgState(code, in.getTarget(), symTable.deepCopy(), prg.getOut(), prg.getFileTable(), heap, prg.getSemaphoreTable());
+                    forked.setHeapQuota(prg.getHeapQuota());
+                    break;
+                case JUMP:
+                    pc = in.getTarget();
+                    continue;
+                case HALT:
+                    prg.setPc(pc);
+                    return null;
+                default:
+                    throw new MyException("Invalid instruction " + in);
+            }
+
+            pc++;
+            if (in.getOp().endsStep()) {
+                prg.setPc(pc);
+                return forked;
+            }
+        }
+    }
+
+    private static Value arith(Value v1, Value v2, ArithOperation op) throws MyException {
+        if (v1.getType() != Types.INT) { throw new InvalidOperandType("First operand is not an integer"); }
+        if (v2.getType() != Types.INT) { throw new InvalidOperandType("Second operand is not an integer"); }
+        int n1 = ((IntValue) v1).getValue();
+        int n2 = ((IntValue) v2).getValue();
+
+        switch (op) {
+            case ADD: return new IntValue(n1 + n2);
+            case SUB: return new IntValue(n1 - n2);
+            case MUL: return new IntValue(n1 * n2);
+            case DIV:
+                if (n2 == 0) throw new DivisionByZeroException("Division by zero");
+                return new IntValue(n1 / n2);
+            default: throw new ExpException("Invalid operation");
+        }
+    }
+
+    private static Value compare(Value v1, Value v2, CompareOperation op) throws MyException {
+        if (v1.getType() != Types.INT) { throw new InvalidOperandType("First operand is not an integer"); }
+        if (v2.getType() != Types.INT) { throw new InvalidOperandType("Second operand is not an integer"); }
+        int n1 = ((IntValue) v1).getValue();
+        int n2 = ((IntValue) v2).getValue();
+
+        switch (op) {
+            case EQUAL: return new BoolValue(n1 == n2);
+            case NOT_EQUAL: return new BoolValue(n1 != n2);
+            case LESS: return new BoolValue(n1 < n2);
+            case LESS_OR_EQUAL: return new BoolValue(n1 <= n2);
+            case GREATER: return new BoolValue(n1 > n2);
+            case GREATER_OR_EQUAL: return new BoolValue(n1 >= n2);
+            default: throw new ExpException("Invalid operation");
+        }
+    }
+
+    private static Value logic(Value v1, Value v2, LogicOperation op) throws MyException {
+        if (v1.getType() != Types.BOOL) { throw new InvalidOperandType("First operand is not a boolean"); }
+        if (v2.getType() != Types.BOOL) { throw new InvalidOperandType("Second operand is not a boolean"); }
+        boolean b1 = ((BoolValue) v1).getValue();
+        boolean b2 = ((BoolValue) v2).getValue();
+
+        switch (op) {
+            case AND: return new BoolValue(b1 && b2);
+            case OR: return new BoolValue(b1 || b2);
+            default: throw new ExpException("Invalid operation");
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.model.enums;
+
+public enum ExecutionMode {
+    // walks the statement tree using the execution stack (reference mode)
+    INTERPRETER,
+    // compiles the program to bytecode and runs it on the virtual machine
+    BYTECODE
+}
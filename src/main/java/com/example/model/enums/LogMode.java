@@ -0,0 +1,8 @@
+package com.example.model.enums;
+
+public enum LogMode {
+    // every logged program state is written whole
+    FULL,
+    // only what changed since the step before is written, with a whole keyframe now and then
+    TRACE
+}
@@ -0,0 +1,10 @@
+package com.example.model.enums;
+
+public enum SchedulerMode {
+    // every program moves one quantum per round on a fixed pool
+    LOCKSTEP,
+    // every program is a task on a fork/join pool sized to the cores
+    WORK_STEALING,
+    // every program runs on its own virtual thread
+    VIRTUAL_THREADS
+}
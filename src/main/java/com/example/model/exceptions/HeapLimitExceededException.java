@@ -0,0 +1,7 @@
+package com.example.model.exceptions;
+
+public class HeapLimitExceededException extends MyException {
+    public HeapLimitExceededException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.model.exceptions;
+
+public class InvalidAddressException extends MyException {
+    public InvalidAddressException(String s) {
+        super(s);
+    }
+}
@@ -4,6 +4,9 @@ public class MyException extends Exception {
     public MyException(String message) {
         super(message);
     }
+    public MyException(String message, Throwable cause) {
+        super(message, cause);
+    }
     public MyException() {
         super("MyException");
     }
@@ -1,11 +1,17 @@
 package com.example.model.expressions;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.model.exceptions.DivisionByZeroException;
 import com.example.model.exceptions.ExpException;
 import com.example.model.exceptions.InvalidOperandType;
 import com.example.model.exceptions.MyException;
 import com.example.model.types.Type;
-import com.example.model.types.IntType;
+import com.example.model.types.Types;
 import com.example.model.values.IntValue;
 import com.example.model.values.Value;
 import com.example.model.enums.ArithOperation;
@@ -27,10 +33,10 @@ public class ArithExp implements Exp {
         Type t1 = e1.typeCheck(typeEnv);
         Type t2 = e2.typeCheck(typeEnv);
 
-        if (!t1.equals(new IntType())) { throw new InvalidOperandType("First operand is not an integer"); }
-        if (!t2.equals(new IntType())) { throw new InvalidOperandType("Second operand is not an integer"); }
+        if (!t1.equals(Types.INT)) { throw new InvalidOperandType("First operand is not an integer"); }
+        if (!t2.equals(Types.INT)) { throw new InvalidOperandType("Second operand is not an integer"); }
 
-        return new IntType();
+        return Types.INT;
     }
 
     @Override
@@ -41,8 +47,8 @@ public class ArithExp implements Exp {
             v2 = e2.eval(table, heap);
         } catch (MyException e) { throw new ExpException(e.getMessage()); }
 
-        if (!v1.getType().equals(new IntType())) { throw new InvalidOperandType("First operand is not an integer"); }
-        if (!v2.getType().equals(new IntType())) { throw new InvalidOperandType("Second operand is not an integer"); }
+        if (v1.getType() != Types.INT) { throw new InvalidOperandType("First operand is not an integer"); }
+        if (v2.getType() != Types.INT) { throw new InvalidOperandType("Second operand is not an integer"); }
 
         IntValue i1 = (IntValue)v1;
         IntValue i2 = (IntValue)v2;
@@ -64,6 +70,21 @@ public class ArithExp implements Exp {
         }
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        e1.compile(compiler);
+        e2.compile(compiler);
+        compiler.emit(OpCode.ARITH, null, op);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.ARITH);
+        out.writeExp(e1);
+        out.writeExp(e2);
+        out.writeEnum(op);
+    }
+
     @Override
     public Exp deepCopy() {
         return new ArithExp(e1.deepCopy(), e2.deepCopy(), op);
@@ -1,13 +1,20 @@
 package com.example.model.expressions;
 
+import java.io.IOException;
+
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.collections.heap.MyIHeap;
 import com.example.model.values.Value;
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.SnapshotWriter;
 import com.example.model.exceptions.MyException;
 import com.example.model.types.Type;
 
 public interface Exp {
     Type typeCheck(MyIDictionary<String, Type> typeEnv) throws MyException;
     Value eval(MyIDictionary<String, Value> table, MyIHeap<Integer, Value> heap) throws MyException;
+    void compile(BytecodeCompiler compiler);
+    // the node and its children, in the order SnapshotReader reads them back
+    void write(SnapshotWriter out) throws IOException;
     Exp deepCopy();
 }
\ No newline at end of file
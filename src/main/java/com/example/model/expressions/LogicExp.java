@@ -1,11 +1,17 @@
 package com.example.model.expressions;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.model.enums.LogicOperation;
 import com.example.model.exceptions.ExpException;
 import com.example.model.exceptions.InvalidOperandType;
 import com.example.model.exceptions.MyException;
 import com.example.model.types.Type;
-import com.example.model.types.BoolType;
+import com.example.model.types.Types;
 import com.example.model.values.BoolValue;
 import com.example.model.values.Value;
 import com.example.collections.dictionary.MyIDictionary;
@@ -27,10 +33,10 @@ public class LogicExp implements Exp {
         Type t1 = e1.typeCheck(typeEnv);
         Type t2 = e2.typeCheck(typeEnv);
 
-        if (!t1.equals(new BoolType())) { throw new InvalidOperandType("First operand is not a boolean"); }
-        if (!t2.equals(new BoolType())) { throw new InvalidOperandType("Second operand is not a boolean"); }
+        if (!t1.equals(Types.BOOL)) { throw new InvalidOperandType("First operand is not a boolean"); }
+        if (!t2.equals(Types.BOOL)) { throw new InvalidOperandType("Second operand is not a boolean"); }
 
-        return new BoolType();
+        return Types.BOOL;
     }
 
     @Override
@@ -41,8 +47,8 @@ public class LogicExp implements Exp {
             v2 = e2.eval(table, heap);
         } catch (MyException e) { throw new ExpException("Logic expression: " + e.getMessage()); }
 
-        if (!v1.getType().equals(new BoolType())) { throw new InvalidOperandType("First operand is not a boolean"); }
-        if (!v2.getType().equals(new BoolType())) { throw new InvalidOperandType("Second operand is not a boolean"); }
+        if (v1.getType() != Types.BOOL) { throw new InvalidOperandType("First operand is not a boolean"); }
+        if (v2.getType() != Types.BOOL) { throw new InvalidOperandType("Second operand is not a boolean"); }
 
         BoolValue b1 = (BoolValue)v1;
         BoolValue b2 = (BoolValue)v2;
@@ -56,6 +62,21 @@ public class LogicExp implements Exp {
         }
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        e1.compile(compiler);
+        e2.compile(compiler);
+        compiler.emit(OpCode.LOGIC, null, op);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.LOGIC);
+        out.writeExp(e1);
+        out.writeExp(e2);
+        out.writeEnum(op);
+    }
+
     @Override
     public Exp deepCopy() {
         return new LogicExp(e1.deepCopy(), e2.deepCopy(), op);
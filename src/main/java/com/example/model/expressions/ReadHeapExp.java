@@ -1,5 +1,11 @@
 package com.example.model.expressions;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.collections.heap.MyIHeap;
 import com.example.model.exceptions.MyException;
@@ -30,13 +36,21 @@ public class ReadHeapExp implements Exp {
         if (!(val instanceof RefValue)) { throw new MyException("Expression " + exp.toString() + " is not a reference"); }
         RefValue refVal = (RefValue) val;
 
-        int address = refVal.getAddress();
-
-        if (!heap.containsKey(address)) { throw new MyException("Address " + address + " is not defined in the heap"); }
-
-        return heap.get(address);
+        return heap.getOrFail(refVal.getAddress());
     }
     
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        exp.compile(compiler);
+        compiler.emit(OpCode.READ_HEAP);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.READ_HEAP);
+        out.writeExp(exp);
+    }
+
     @Override
     public String toString() {
         return "rH(" + exp + ")";
@@ -44,6 +58,6 @@ public class ReadHeapExp implements Exp {
 
     @Override
     public Exp deepCopy() {
-        return new ReadHeapExp(exp);
+        return new ReadHeapExp(exp.deepCopy());
     }
 }
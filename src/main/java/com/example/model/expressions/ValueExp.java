@@ -1,5 +1,11 @@
 package com.example.model.expressions;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.model.values.Value;
 import com.example.model.exceptions.MyException;
 import com.example.model.types.Type;
@@ -23,6 +29,17 @@ public class ValueExp implements Exp {
         return val;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emit(OpCode.PUSH_CONST, null, val);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.VALUE);
+        out.writeValue(val);
+    }
+
     @Override
     public Exp deepCopy() {
         return new ValueExp(val.deepCopy());
@@ -1,30 +1,52 @@
 package com.example.model.expressions;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.model.exceptions.MyException;
 import com.example.model.exceptions.VariableNotDefined;
 import com.example.model.values.Value;
 import com.example.model.types.Type;
 import com.example.collections.dictionary.MyIDictionary;
+import com.example.collections.frame.FrameSlot;
 import com.example.collections.heap.MyIHeap;
 
 
 public class VarExp implements Exp {
     private String id;
+    private FrameSlot slot;
 
     public VarExp(String id) {
         this.id = id;
+        this.slot = new FrameSlot(id);
     }
 
     @Override
     public Type typeCheck(MyIDictionary<String, Type> typeEnv) throws MyException {
         if (!typeEnv.containsKey(id)) { throw new VariableNotDefined("Variable " + id + " is not defined"); }
+        slot.resolve(typeEnv);
         return typeEnv.get(id);
     }
 
     @Override
     public Value eval(MyIDictionary<String, Value> table, MyIHeap<Integer, Value> heap) throws VariableNotDefined{
-        if (!table.containsKey(id)) { throw new VariableNotDefined("Variable " + id + " is not defined"); }
-        return table.get(id);
+        Value val = slot.get(table);
+        if (val == null) { throw new VariableNotDefined("Variable " + id + " is not defined"); }
+        return val;
+    }
+
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emit(OpCode.LOAD_VAR, id);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.VAR);
+        out.writeString(id);
     }
 
     @Override
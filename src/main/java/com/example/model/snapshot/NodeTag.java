@@ -0,0 +1,50 @@
+package com.example.model.snapshot;
+
+// First byte of every statement, expression, value and type in a snapshot. The ordinal is
+// what is written, so new tags go at the end or old snapshots can't be read any more.
+public enum NodeTag {
+    // a statement already written, followed by its index in the order statements were first written
+    STMT_REF,
+    COMPOUND,
+    ASSIGN,
+    COND_ASSIGN,
+    FORK,
+    IF,
+    NO_OP,
+    PRINT,
+    SWITCH,
+    VAR_DECL,
+    WHILE,
+    OPEN_FILE,
+    READ_FILE,
+    CLOSE_FILE,
+    NEW_HEAP,
+    WRITE_HEAP,
+    ACQUIRE,
+    CREATE_SEMAPHORE,
+    RELEASE,
+
+    ARITH,
+    COMPARE,
+    LOGIC,
+    READ_HEAP,
+    VALUE,
+    VAR,
+
+    INT_VALUE,
+    BOOL_VALUE,
+    STRING_VALUE,
+    REF_VALUE,
+
+    INT_TYPE,
+    BOOL_TYPE,
+    STRING_TYPE,
+    REF_TYPE;
+
+    private static final NodeTag[] TAGS = values();
+
+    // null for a byte that is not a tag
+    public static NodeTag of(int ordinal) {
+        return ordinal >= 0 && ordinal < TAGS.length ? TAGS[ordinal] : null;
+    }
+}
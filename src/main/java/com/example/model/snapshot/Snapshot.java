@@ -0,0 +1,44 @@
+package com.example.model.snapshot;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import com.example.collections.list.MyIList;
+import com.example.model.PrgState;
+
+// A run suspended to a file: the programs with everything they share, and the log they write to.
+public class Snapshot {
+    private final String logFilePath;
+    private final MyIList<PrgState> programs;
+
+    public Snapshot(String logFilePath, MyIList<PrgState> programs) {
+        this.logFilePath = logFilePath;
+        this.programs = programs;
+    }
+
+    public String getLogFilePath() { return logFilePath; }
+    public MyIList<PrgState> getPrograms() { return programs; }
+
+    // The programs have to be stopped. Written next to the file and moved over it at the end,
+    // so a failed suspend leaves the previous snapshot as it was.
+    public static void save(Path path, String logFilePath, MyIList<PrgState> programs) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new SnapshotWriter(channel).writeRun(logFilePath, programs);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Snapshot load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new SnapshotReader(channel).readRun();
+        }
+    }
+}
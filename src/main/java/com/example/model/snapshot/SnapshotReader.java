@@ -0,0 +1,327 @@
+package com.example.model.snapshot;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.util.Pair;
+
+import com.example.collections.dictionary.MyDictionary;
+import com.example.collections.dictionary.MyIDictionary;
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyFrame;
+import com.example.collections.heap.MyHeap;
+import com.example.collections.heap.MyIHeap;
+import com.example.collections.list.MyIList;
+import com.example.collections.list.MyList;
+import com.example.collections.stack.MyIStack;
+import com.example.collections.stack.MyStack;
+import com.example.model.PrgState;
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.bytecode.CompiledProgram;
+import com.example.model.enums.ArithOperation;
+import com.example.model.enums.CompareOperation;
+import com.example.model.enums.LogicOperation;
+import com.example.model.exceptions.MyException;
+import com.example.model.expressions.ArithExp;
+import com.example.model.expressions.CompareExp;
+import com.example.model.expressions.Exp;
+import com.example.model.expressions.LogicExp;
+import com.example.model.expressions.ReadHeapExp;
+import com.example.model.expressions.ValueExp;
+import com.example.model.expressions.VarExp;
+import com.example.model.statements.AssignStmt;
+import com.example.model.statements.CompoundStmt;
+import com.example.model.statements.CondAssignStmt;
+import com.example.model.statements.ForkStmt;
+import com.example.model.statements.IStmt;
+import com.example.model.statements.IfStmt;
+import com.example.model.statements.NoOpStmt;
+import com.example.model.statements.PrintStmt;
+import com.example.model.statements.SwitchStmt;
+import com.example.model.statements.VarDeclStmt;
+import com.example.model.statements.WhileStmt;
+import com.example.model.statements.file.CloseFileStmt;
+import com.example.model.statements.file.OpenFileStmt;
+import com.example.model.statements.file.ReadFileStmt;
+import com.example.model.statements.heap.NewHeapStmt;
+import com.example.model.statements.heap.WriteHeapStmt;
+import com.example.model.statements.semaphore.AcquireStmt;
+import com.example.model.statements.semaphore.CreateSemaphoreStmt;
+import com.example.model.statements.semaphore.ReleaseStmt;
+import com.example.model.states.countSemaphore.ConcurrentSemaphoreTable;
+import com.example.model.states.countSemaphore.ISemaphoreTable;
+import com.example.model.types.Type;
+import com.example.model.types.Types;
+import com.example.model.values.BoolValue;
+import com.example.model.values.IntValue;
+import com.example.model.values.RefValue;
+import com.example.model.values.StringValue;
+import com.example.model.values.Value;
+
+// Reads back a run written by SnapshotWriter, through one buffer refilled from the channel.
+// The programs get their ids back, the heap, output and semaphores they shared are shared
+// again, and the files they had open are opened again at the line they had got to.
+// A program that was waiting for a semaphore is resumed awake and tries its acquire again.
+public class SnapshotReader {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    // statements in the order they were first written, a STMT_REF is an index in it
+    private final List<IStmt> statements = new ArrayList<>();
+
+    public SnapshotReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(SnapshotWriter.BUFFER_SIZE);
+        buffer.limit(0);
+    }
+
+    public Snapshot readRun() throws IOException {
+        ensure(4);
+        if (buffer.getInt() != SnapshotWriter.MAGIC) throw new IOException("Not a program snapshot");
+        int version = readInt();
+        if (version != SnapshotWriter.VERSION) throw new IOException("Unsupported snapshot version " + version);
+        String logFilePath = readString();
+
+        ISemaphoreTable semaphoreTable = readSemaphores();
+        MyIList<Value> out = new MyList<>();
+        for (int n = readInt(); n > 0; n--) { out.add(readValue()); }
+        MyIHeap<Integer, Value> heap = new MyHeap<>();
+        Map<Integer, Value> cells = new HashMap<>();
+        for (int n = readInt(); n > 0; n--) {
+            int address = readInt();
+            cells.put(address, readValue());
+        }
+        heap.setContent(cells);
+
+        List<MyIDictionary<StringValue, BufferedReader>> fileTables = new ArrayList<>();
+        for (int n = readInt(); n > 0; n--) { fileTables.add(readFileTable()); }
+
+        // tree programs share one layout, compiled programs use the layout of their code
+        FrameLayout layout = new FrameLayout();
+        Map<IStmt, CompiledProgram> compiled = new IdentityHashMap<>();
+        MyIList<PrgState> programs = new MyList<>();
+        for (int n = readInt(); n > 0; n--) {
+            int id = readInt();
+            int kind = readInt();
+            PrgState prg;
+            if (kind == SnapshotWriter.BYTECODE) {
+                CompiledProgram code = compiled.computeIfAbsent(readStmt(), BytecodeCompiler::compile);
+                int pc = readInt();
+                if (pc < 0 || pc >= code.size()) throw new IOException("Corrupt snapshot: pc " + pc + " is outside the code");
+                MyIDictionary<String, Value> symTable = readSymTable(new MyFrame<>(code.getLayout()));
+                prg = new PrgState(code, pc, symTable, out, readFileTableRef(fileTables), heap, semaphoreTable);
+            } else if (kind == SnapshotWriter.TREE) {
+                IStmt original = readStmt();
+                MyIStack<IStmt> stack = new MyStack<>();
+                for (int size = readInt(); size > 0; size--) { stack.push(readStmt()); }
+                MyIDictionary<String, Value> symTable = readSymTable(new MyFrame<>(layout));
+                prg = new PrgState(original, symTable, out, readFileTableRef(fileTables), heap, semaphoreTable);
+                prg.setExeStack(stack);
+                bindSlots(stack, symTable, layout);
+            } else {
+                throw new IOException("Corrupt snapshot: unknown program kind " + kind);
+            }
+            prg.setId(id);
+            programs.add(prg);
+        }
+        return new Snapshot(logFilePath, programs);
+    }
+
+    // The statements read back look their variables up by name. Type checking what is left
+    // on the stack, from the top down, from the variables already declared resolves them to
+    // slots of the layout again.
+    private void bindSlots(MyIStack<IStmt> stack, MyIDictionary<String, Value> symTable, FrameLayout layout) throws IOException {
+        MyIDictionary<String, Type> typeEnv = new MyFrame<>(layout);
+        for (Map.Entry<String, Value> var : symTable.entrySet()) { typeEnv.put(var.getKey(), var.getValue().getType()); }
+        List<IStmt> statements = stack.stream().toList();
+        try {
+            for (int i = statements.size() - 1; i >= 0; i--) { typeEnv = statements.get(i).typeCheck(typeEnv); }
+        } catch (MyException e) {
+            throw new IOException("Corrupt snapshot: " + e.getMessage());
+        }
+    }
+
+    private ISemaphoreTable readSemaphores() throws IOException {
+        ISemaphoreTable table = new ConcurrentSemaphoreTable();
+        HashMap<Integer, Pair<Integer, List<Integer>>> semaphores = new HashMap<>();
+        int freeLocation = 0;
+        for (int n = readInt(); n > 0; n--) {
+            int key = readInt();
+            int permits = readInt();
+            List<Integer> holders = new ArrayList<>();
+            for (int h = readInt(); h > 0; h--) { holders.add(readInt()); }
+            semaphores.put(key, new Pair<>(permits, holders));
+            freeLocation = Math.max(freeLocation, key);
+        }
+        table.setSemaphoreTable(semaphores);
+        table.setFreeAddress(freeLocation);
+        return table;
+    }
+
+    private MyIDictionary<StringValue, BufferedReader> readFileTable() throws IOException {
+        MyIDictionary<StringValue, BufferedReader> table = new MyDictionary<>();
+        for (int n = readInt(); n > 0; n--) {
+            String file = readString();
+            int line = readInt();
+            table.put(new StringValue(file), OpenFileStmt.reopen(file, line));
+        }
+        return table;
+    }
+
+    private MyIDictionary<StringValue, BufferedReader> readFileTableRef(List<MyIDictionary<StringValue, BufferedReader>> fileTables) throws IOException {
+        int index = readInt();
+        if (index < 0 || index >= fileTables.size()) throw new IOException("Corrupt snapshot: unknown file table " + index);
+        return fileTables.get(index);
+    }
+
+    private MyIDictionary<String, Value> readSymTable(MyIDictionary<String, Value> symTable) throws IOException {
+        for (int n = readInt(); n > 0; n--) {
+            String name = readString();
+            symTable.put(name, readValue());
+        }
+        return symTable;
+    }
+
+    public IStmt readStmt() throws IOException {
+        NodeTag tag = readTag();
+        if (tag == NodeTag.STMT_REF) {
+            int index = readInt();
+            if (index < 0 || index >= statements.size() || statements.get(index) == null) {
+                throw new IOException("Corrupt snapshot: unknown statement " + index);
+            }
+            return statements.get(index);
+        }
+        // same numbering as the writer: the index is taken before the children are read
+        int index = statements.size();
+        statements.add(null);
+        IStmt stmt = switch (tag) {
+            case COMPOUND -> new CompoundStmt(readStmt(), readStmt());
+            case ASSIGN -> new AssignStmt(readString(), readExp());
+            case COND_ASSIGN -> new CondAssignStmt(readString(), readExp(), readExp(), readExp());
+            case FORK -> new ForkStmt(readStmt());
+            case IF -> new IfStmt(readExp(), readStmt(), readStmt());
+            case NO_OP -> new NoOpStmt();
+            case PRINT -> new PrintStmt(readExp());
+            case SWITCH -> new SwitchStmt(readExp(), readExp(), readStmt(), readExp(), readStmt(), readStmt());
+            case VAR_DECL -> new VarDeclStmt(readString(), readType());
+            case WHILE -> new WhileStmt(readExp(), readStmt());
+            case OPEN_FILE -> new OpenFileStmt(readExp());
+            case READ_FILE -> new ReadFileStmt(readExp(), readString());
+            case CLOSE_FILE -> new CloseFileStmt(readExp());
+            case NEW_HEAP -> new NewHeapStmt(readString(), readExp());
+            case WRITE_HEAP -> new WriteHeapStmt(readString(), readExp());
+            case ACQUIRE -> new AcquireStmt(readString());
+            case CREATE_SEMAPHORE -> new CreateSemaphoreStmt(readString(), readExp());
+            case RELEASE -> new ReleaseStmt(readString());
+            default -> throw new IOException("Corrupt snapshot: " + tag + " is not a statement");
+        };
+        statements.set(index, stmt);
+        return stmt;
+    }
+
+    public Exp readExp() throws IOException {
+        NodeTag tag = readTag();
+        return switch (tag) {
+            case ARITH -> new ArithExp(readExp(), readExp(), readEnum(ArithOperation.values()));
+            case COMPARE -> new CompareExp(readExp(), readExp(), readEnum(CompareOperation.values()));
+            case LOGIC -> new LogicExp(readExp(), readExp(), readEnum(LogicOperation.values()));
+            case READ_HEAP -> new ReadHeapExp(readExp());
+            case VALUE -> new ValueExp(readValue());
+            case VAR -> new VarExp(readString());
+            default -> throw new IOException("Corrupt snapshot: " + tag + " is not an expression");
+        };
+    }
+
+    public Value readValue() throws IOException {
+        NodeTag tag = readTag();
+        return switch (tag) {
+            case INT_VALUE -> new IntValue(readInt());
+            case BOOL_VALUE -> new BoolValue(readBoolean());
+            case STRING_VALUE -> new StringValue(readString());
+            case REF_VALUE -> new RefValue(readInt(), readType());
+            default -> throw new IOException("Corrupt snapshot: " + tag + " is not a value");
+        };
+    }
+
+    // the canonical instances, the interpreter compares types by reference
+    public Type readType() throws IOException {
+        NodeTag tag = readTag();
+        return switch (tag) {
+            case INT_TYPE -> Types.INT;
+            case BOOL_TYPE -> Types.BOOL;
+            case STRING_TYPE -> Types.STRING;
+            case REF_TYPE -> Types.ref(readType());
+            default -> throw new IOException("Corrupt snapshot: " + tag + " is not a type");
+        };
+    }
+
+    private NodeTag readTag() throws IOException {
+        int b = readByte();
+        NodeTag tag = NodeTag.of(b);
+        if (tag == null) throw new IOException("Corrupt snapshot: unknown tag " + b);
+        return tag;
+    }
+
+    private <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+        int ordinal = readInt();
+        if (ordinal < 0 || ordinal >= values.length) throw new IOException("Corrupt snapshot: unknown operation " + ordinal);
+        return values[ordinal];
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public int readInt() throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return (v >>> 1) ^ -(v & 1);
+        }
+        throw new IOException("Corrupt snapshot: number too long");
+    }
+
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) throw new IOException("Corrupt snapshot: negative string length");
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) fill();
+            int n = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, n);
+            offset += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readByte() throws IOException {
+        if (!buffer.hasRemaining()) fill();
+        return buffer.get() & 0xFF;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        while (buffer.remaining() < bytes) fill();
+    }
+
+    // keeps what is left in the buffer and reads more after it
+    private void fill() throws IOException {
+        buffer.compact();
+        int n;
+        try {
+            n = channel.read(buffer);
+        } finally {
+            buffer.flip();
+        }
+        if (n < 0) throw new EOFException("Snapshot is truncated");
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.model.snapshot;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.util.Pair;
+
+import com.example.collections.dictionary.MyIDictionary;
+import com.example.collections.list.MyIList;
+import com.example.model.PrgState;
+import com.example.model.expressions.Exp;
+import com.example.model.statements.IStmt;
+import com.example.model.states.countSemaphore.ISemaphoreTable;
+import com.example.model.types.BoolType;
+import com.example.model.types.IntType;
+import com.example.model.types.RefType;
+import com.example.model.types.StringType;
+import com.example.model.types.Type;
+import com.example.model.values.BoolValue;
+import com.example.model.values.IntValue;
+import com.example.model.values.RefValue;
+import com.example.model.values.StringValue;
+import com.example.model.values.Value;
+
+// Writes a suspended run to a channel through one buffer, which goes to the channel only when
+// it is full, so even a big heap takes a few large writes. Numbers are varints, so small ones
+// (most addresses, ids and values) take one or two bytes. A statement shared by several stacks
+// or programs is written once, the other places refer to it by its index.
+//
+// Layout of a run:
+//   magic, version, log file path
+//   semaphores: count, then key, permits and holder ids of each
+//   output: count, then the values
+//   heap: count, then address and value of each cell
+//   file tables: count, then for each one the open files with the number of lines read
+//   programs: count, then for each one its id, its code (statement stack, or compiled source
+//   and pc), its symbol table and the index of its file table
+public class SnapshotWriter {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    // statements already written, with their index
+    private final Map<IStmt, Integer> statements = new IdentityHashMap<>();
+
+    public static final int MAGIC = 0x544F5953; // "TOYS"
+    public static final int VERSION = 1;
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    // kind of a program in the snapshot
+    static final int TREE = 0;
+    static final int BYTECODE = 1;
+
+    public SnapshotWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    public void writeRun(String logFilePath, MyIList<PrgState> programs) throws IOException {
+        buffer.putInt(MAGIC);
+        writeInt(VERSION);
+        writeString(logFilePath);
+        if (programs.isEmpty()) {
+            writeInt(0);
+            writeInt(0);
+            writeInt(0);
+            writeInt(0);
+            writeInt(0);
+            flush();
+            return;
+        }
+
+        // out, heap and semaphores are shared by all the programs of a run
+        PrgState first = programs.get(0);
+        writeSemaphores(first.getSemaphoreTable());
+        MyIList<Value> out = first.getOut();
+        writeInt(out.size());
+        for (Value v : out) { writeValue(v); }
+        Map<Integer, Value> heap = first.getHeap().getContent();
+        writeInt(heap.size());
+        for (Map.Entry<Integer, Value> cell : heap.entrySet()) {
+            writeInt(cell.getKey());
+            writeValue(cell.getValue());
+        }
+
+        // forked programs share the file table of their parent
+        Map<MyIDictionary<StringValue, BufferedReader>, Integer> fileTables = new IdentityHashMap<>();
+        List<MyIDictionary<StringValue, BufferedReader>> tables = new ArrayList<>();
+        for (PrgState prg : programs) {
+            if (fileTables.putIfAbsent(prg.getFileTable(), tables.size()) == null) tables.add(prg.getFileTable());
+        }
+        writeInt(tables.size());
+        for (MyIDictionary<StringValue, BufferedReader> table : tables) { writeFileTable(table); }
+
+        writeInt(programs.size());
+        for (PrgState prg : programs) {
+            writeInt(prg.getId());
+            if (prg.getCode() != null) {
+                writeInt(BYTECODE);
+                writeStmt(prg.getCode().getSource());
+                writeInt(prg.getPc());
+            } else {
+                writeInt(TREE);
+                writeStmt(prg.getOriginalProgram());
+                List<IStmt> stack = prg.getExeStack().stream().toList();
+                writeInt(stack.size());
+                for (IStmt stmt : stack) { writeStmt(stmt); }
+            }
+            writeSymTable(prg.getSymTable());
+            writeInt(fileTables.get(prg.getFileTable()));
+        }
+        flush();
+    }
+
+    // the free location is the highest key, keys are handed out in order and never removed
+    private void writeSemaphores(ISemaphoreTable table) throws IOException {
+        Map<Integer, Pair<Integer, List<Integer>>> semaphores = table.getSemaphoreTable();
+        writeInt(semaphores.size());
+        for (Map.Entry<Integer, Pair<Integer, List<Integer>>> sem : semaphores.entrySet()) {
+            writeInt(sem.getKey());
+            writeInt(sem.getValue().getKey());
+            List<Integer> holders = sem.getValue().getValue();
+            writeInt(holders.size());
+            for (int id : holders) { writeInt(id); }
+        }
+    }
+
+    // a reader can't be saved, only how far into its file it got
+    private void writeFileTable(MyIDictionary<StringValue, BufferedReader> table) throws IOException {
+        writeInt(table.size());
+        for (Map.Entry<StringValue, BufferedReader> file : table.entrySet()) {
+            if (!(file.getValue() instanceof LineNumberReader reader)) {
+                throw new IOException("Can't save the position in file " + file.getKey());
+            }
+            writeString(file.getKey().getValue());
+            writeInt(reader.getLineNumber());
+        }
+    }
+
+    private void writeSymTable(MyIDictionary<String, Value> symTable) throws IOException {
+        writeInt(symTable.size());
+        for (Map.Entry<String, Value> var : symTable.entrySet()) {
+            writeString(var.getKey());
+            writeValue(var.getValue());
+        }
+    }
+
+    public void writeStmt(IStmt stmt) throws IOException {
+        Integer index = statements.get(stmt);
+        if (index != null) {
+            writeTag(NodeTag.STMT_REF);
+            writeInt(index);
+            return;
+        }
+        // the index is taken before the children are written, the reader numbers them the same way
+        statements.put(stmt, statements.size());
+        stmt.write(this);
+    }
+
+    public void writeExp(Exp exp) throws IOException {
+        exp.write(this);
+    }
+
+    public void writeValue(Value value) throws IOException {
+        if (value instanceof IntValue v) {
+            writeTag(NodeTag.INT_VALUE);
+            writeInt(v.getValue());
+        } else if (value instanceof BoolValue v) {
+            writeTag(NodeTag.BOOL_VALUE);
+            writeBoolean(v.getValue());
+        } else if (value instanceof StringValue v) {
+            writeTag(NodeTag.STRING_VALUE);
+            writeString(v.getValue());
+        } else if (value instanceof RefValue v) {
+            writeTag(NodeTag.REF_VALUE);
+            writeInt(v.getAddress());
+            writeType(v.getLocationType());
+        } else {
+            throw new IOException("Can't save value " + value);
+        }
+    }
+
+    public void writeType(Type type) throws IOException {
+        if (type instanceof IntType) {
+            writeTag(NodeTag.INT_TYPE);
+        } else if (type instanceof BoolType) {
+            writeTag(NodeTag.BOOL_TYPE);
+        } else if (type instanceof StringType) {
+            writeTag(NodeTag.STRING_TYPE);
+        } else if (type instanceof RefType refType) {
+            writeTag(NodeTag.REF_TYPE);
+            writeType(refType.getInner());
+        } else {
+            throw new IOException("Can't save type " + type);
+        }
+    }
+
+    public void writeTag(NodeTag tag) throws IOException {
+        ensure(1);
+        buffer.put((byte) tag.ordinal());
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        ensure(1);
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    public void writeEnum(Enum<?> value) throws IOException {
+        writeInt(value.ordinal());
+    }
+
+    // zigzag varint: 7 bits per byte, small negative numbers are short too
+    public void writeInt(int value) throws IOException {
+        ensure(5);
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7F) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    public void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) flush();
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) { channel.write(buffer); }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.model.snapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyFrame;
+import com.example.collections.list.MyIList;
+import com.example.controller.Controller;
+import com.example.controller.Programs;
+import com.example.controller.gc.EveryStepPolicy;
+import com.example.model.PrgState;
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.statements.IStmt;
+import com.example.repository.Repository;
+
+// Round trip of suspend and resume across JVMs. save runs every example of Programs for a few
+// numbers of rounds, suspends it into dir and goes on to the end of the run in the same JVM; it
+// writes what the programs looked like when suspended and their final output next to the
+// snapshots. resume, run in a new JVM, resumes every snapshot, compares the programs with what
+// save saw, runs them to the end and compares the output. The heap is collected every round,
+// so a cell the snapshot lost or kept alive wrongly shows up. The rounds run on one thread, so
+// programs racing for a semaphore take it in the same order in both JVMs.
+//
+//   SuspendCheck save <dir> [vm]   vm runs the bytecode of the examples
+//   SuspendCheck resume <dir>
+public class SuspendCheck {
+    private static final int[] ROUNDS = {0, 1, 2, 5, 9, 17, 40};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || !(args[0].equals("save") || args[0].equals("resume"))) {
+            System.out.println("Usage: SuspendCheck save <dir> [vm] | SuspendCheck resume <dir>");
+            System.exit(2);
+        }
+        Path dir = Path.of(args[1]);
+        Files.createDirectories(dir);
+        // what the programs print is not part of the comparison
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            if (args[0].equals("save")) save(dir, args.length > 2 && args[2].equals("vm"), console);
+            else resume(dir, console);
+        } finally {
+            System.setOut(console);
+        }
+        System.exit(0);
+    }
+
+    private static void save(Path dir, boolean vm, PrintStream console) throws IOException {
+        Properties expected = new Properties();
+        int number = 0;
+        for (IStmt example : new Programs().getPrograms()) {
+            number++;
+            for (int rounds : ROUNDS) {
+                String name = "ex" + number + "_" + rounds + (vm ? "vm" : "");
+                try {
+                    IStmt prg = example.deepCopy();
+                    FrameLayout layout = new FrameLayout();
+                    prg.typeCheck(new MyFrame<>(layout));
+                    Repository repo = new Repository("");
+                    repo.addProgram(vm ? new PrgState(BytecodeCompiler.compile(prg)) : new PrgState(prg, layout));
+                    Controller controller = controller(repo);
+                    int done = 0;
+                    while (done < rounds && !controller.removeCompletedPrg(repo.getProgramList()).isEmpty()) {
+                        controller.runRound();
+                        done++;
+                    }
+                    if (done < rounds) {
+                        controller.shutdown();
+                        break;
+                    }
+                    controller.suspend(dir.resolve(name).toString());
+                    expected.setProperty(name + ".state", describe(repo.getProgramList()));
+                    expected.setProperty(name + ".out", finish(controller));
+                    controller.shutdown();
+                } catch (Exception e) {
+                    console.println(name + " not saved: " + e.getMessage());
+                    break;
+                }
+            }
+        }
+        try (OutputStream out = Files.newOutputStream(dir.resolve("expected" + (vm ? "vm" : "") + ".properties"))) {
+            expected.store(out, null);
+        }
+        console.println("saved " + expected.size() / 2 + " runs");
+    }
+
+    private static void resume(Path dir, PrintStream console) throws IOException {
+        int checks = 0, mismatches = 0;
+        for (String file : new String[] {"expected.properties", "expectedvm.properties"}) {
+            if (!Files.exists(dir.resolve(file))) continue;
+            Properties expected = new Properties();
+            try (InputStream in = Files.newInputStream(dir.resolve(file))) { expected.load(in); }
+            for (String key : new TreeSet<>(expected.stringPropertyNames())) {
+                if (!key.endsWith(".state")) continue;
+                String name = key.substring(0, key.length() - ".state".length());
+                checks++;
+                try {
+                    Repository repo = Repository.resume(dir.resolve(name).toString());
+                    String state = describe(repo.getProgramList());
+                    Controller controller = controller(repo);
+                    String out = finish(controller);
+                    controller.shutdown();
+                    if (!state.equals(expected.getProperty(key))) {
+                        mismatches++;
+                        console.println(name + " state\n  expected " + expected.getProperty(key) + "\n  resumed  " + state);
+                    } else if (!out.equals(expected.getProperty(name + ".out"))) {
+                        mismatches++;
+                        console.println(name + " output\n  expected " + expected.getProperty(name + ".out") + "\n  resumed  " + out);
+                    }
+                } catch (Exception e) {
+                    mismatches++;
+                    console.println(name + " failed: " + e);
+                }
+            }
+        }
+        console.println("checks=" + checks + " mismatches=" + mismatches);
+    }
+
+    private static Controller controller(Repository repo) {
+        Controller controller = new Controller(repo);
+        controller.setGcPolicy(new EveryStepPolicy());
+        controller.startExecutor(1);
+        return controller;
+    }
+
+    // runs the programs to the end and returns their output
+    private static String finish(Controller controller) throws Exception {
+        MyIList<PrgState> programs = controller.getRepo().getProgramList();
+        String out = programs.isEmpty() ? "<done>" : null;
+        while (!controller.removeCompletedPrg(controller.getRepo().getProgramList()).isEmpty()) {
+            if (!controller.runRound()) break;
+        }
+        return out != null ? out : programs.get(0).getOut().toString();
+    }
+
+    // the programs between two rounds, heap cells and semaphores in address order
+    private static String describe(MyIList<PrgState> programs) {
+        if (programs.isEmpty()) return "<done>";
+        PrgState first = programs.get(0);
+        StringBuilder text = new StringBuilder();
+        text.append("out=").append(first.getOut())
+            .append(" heap=").append(new TreeMap<>(first.getHeap().getContent()))
+            .append(" sems=").append(new TreeMap<>(first.getSemaphoreTable().getSemaphoreTable()))
+            .append(" files=").append(first.getFileTable().keySet());
+        for (PrgState prg : programs) {
+            text.append(" | ").append(prg.getId()).append(prg.getSymTable())
+                .append(" pc=").append(prg.getPc())
+                .append(" stack=").append(prg.getExeStack().toString().replace('\n', ';'));
+        }
+        return text.toString();
+    }
+}
@@ -1,6 +1,13 @@
 package com.example.model.statements;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
+import com.example.collections.frame.FrameSlot;
 import com.example.collections.heap.MyIHeap;
 import com.example.model.PrgState;
 import com.example.model.exceptions.MyException;
@@ -8,15 +15,18 @@ import com.example.model.exceptions.StmtException;
 import com.example.model.exceptions.VariableNotDefined;
 import com.example.model.expressions.Exp;
 import com.example.model.types.Type;
+import com.example.model.types.Types;
 import com.example.model.values.Value;
 
 public class AssignStmt implements IStmt {
     String id;
     Exp exp;
+    FrameSlot slot;
 
     public AssignStmt(String id, Exp exp) {
         this.id = id;
         this.exp = exp;
+        this.slot = new FrameSlot(id);
     }
 
     @Override
@@ -27,6 +37,7 @@ public class AssignStmt implements IStmt {
         Type expType = exp.typeCheck(typeEnv);
 
         if (!varType.equals(expType)) { throw new StmtException("Assignment: right hand side and left hand side have different types"); }
+        slot.resolve(typeEnv);
 
         return typeEnv;
     }
@@ -36,18 +47,32 @@ public class AssignStmt implements IStmt {
         MyIDictionary<String, Value> symTable = prg.getSymTable();
         MyIHeap<Integer, Value> heapTable = prg.getHeap();
 
-        if (!symTable.containsKey(id)) { throw new VariableNotDefined("Variable " + id + " is not defined"); }
+        Value old = slot.get(symTable);
+        if (old == null) { throw new VariableNotDefined("Variable " + id + " is not defined"); }
 
         Value val;
         try { val = exp.eval(symTable, heapTable); }
         catch (MyException e) { throw new StmtException(e.getMessage()); }
 
-        if (val.getType().equals(symTable.get(id).getType())) { symTable.put(id, val); } 
+        if (val.getType() == old.getType()) { slot.set(symTable, val); } 
         else { throw new StmtException("Type of expression does not match type of variable"); }
 
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        exp.compile(compiler);
+        compiler.emit(OpCode.STORE, id);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.ASSIGN);
+        out.writeString(id);
+        out.writeExp(exp);
+    }
+
     @Override
     public IStmt deepCopy() {
         return new AssignStmt(id, exp.deepCopy());
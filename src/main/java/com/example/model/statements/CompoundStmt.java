@@ -1,5 +1,10 @@
 package com.example.model.statements;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.collections.stack.MyIStack;
 import com.example.model.PrgState;
@@ -31,6 +36,19 @@ public class CompoundStmt implements IStmt {
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        first.compile(compiler);
+        second.compile(compiler);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.COMPOUND);
+        out.writeStmt(first);
+        out.writeStmt(second);
+    }
+
     @Override
     public IStmt deepCopy() {
         return new CompoundStmt(first.deepCopy(), second.deepCopy());
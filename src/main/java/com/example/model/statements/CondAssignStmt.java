@@ -1,8 +1,14 @@
 package com.example.model.statements;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.types.Type;
-import com.example.model.types.BoolType;
+import com.example.model.types.Types;
 import com.example.model.exceptions.MyException;
 import com.example.model.PrgState;
 import com.example.model.exceptions.StmtException;
@@ -31,7 +37,7 @@ public class CondAssignStmt implements IStmt {
         Type exp2Type = exp2.typeCheck(typeEnv);
         Type exp3Type = exp3.typeCheck(typeEnv);
         
-        if (!exp1Type.equals(new BoolType())) { throw new MyException("CondAssign statement: Expression 1 is not a boolean"); }
+        if (!exp1Type.equals(Types.BOOL)) { throw new MyException("CondAssign statement: Expression 1 is not a boolean"); }
         if (!varType.equals(exp2Type) || !varType.equals(exp3Type)) { throw new MyException("CondAssign statement: Expressions do not have the same type"); }
 
         return typeEnv;
@@ -49,6 +55,28 @@ public class CondAssignStmt implements IStmt {
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        exp1.compile(compiler);
+        int toElse = compiler.emit(OpCode.JUMP_IF_FALSE);
+        exp2.compile(compiler);
+        compiler.emit(OpCode.STORE, var);
+        int toEnd = compiler.emit(OpCode.JUMP);
+        compiler.patch(toElse, compiler.label());
+        exp3.compile(compiler);
+        compiler.emit(OpCode.STORE, var);
+        compiler.patch(toEnd, compiler.label());
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.COND_ASSIGN);
+        out.writeString(var);
+        out.writeExp(exp1);
+        out.writeExp(exp2);
+        out.writeExp(exp3);
+    }
+
     @Override
     public IStmt deepCopy() {
         return new CondAssignStmt(var, exp1.deepCopy(), exp2.deepCopy(), exp3.deepCopy());
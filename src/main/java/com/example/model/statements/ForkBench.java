@@ -0,0 +1,72 @@
+package com.example.model.statements;
+
+import java.lang.reflect.Method;
+import java.util.function.LongSupplier;
+
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyFrame;
+import com.example.model.PrgState;
+import com.example.model.enums.ArithOperation;
+import com.example.model.expressions.ArithExp;
+import com.example.model.expressions.ValueExp;
+import com.example.model.expressions.VarExp;
+import com.example.model.types.IntType;
+import com.example.model.values.IntValue;
+
+// Measures what a fork costs. A program declares vars int variables and forks a 50 statement
+// body, over and over; after every fork the parent writes one variable and the child another,
+// as a loop counter would. Prints the time and the bytes allocated per fork, the new PrgState
+// and both writes included. It only uses what was there before copy-on-write frames, so it
+// also compiles against a checkout of the commit before them, like TypesBench.
+//
+//   ForkBench [vars] [forks]   4 variables and 200000 forks by default
+public class ForkBench {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int vars = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int forks = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        // int x<vars-1>; ...; int x0; fork(x0 = x0 + 1; ... 50 times ...; print(x0))
+        IStmt body = new PrintStmt(new VarExp("x0"));
+        for (int i = 0; i < 50; i++) {
+            body = new CompoundStmt(new AssignStmt("x0", new ArithExp(new VarExp("x0"), new ValueExp(new IntValue(1)), ArithOperation.ADD)), body);
+        }
+        ForkStmt fork = new ForkStmt(body);
+        IStmt prg = fork;
+        for (int i = 0; i < vars; i++) { prg = new CompoundStmt(new VarDeclStmt("x" + i, new IntType()), prg); }
+        FrameLayout layout = new FrameLayout();
+        prg.typeCheck(new MyFrame<>(layout));
+        PrgState state = new PrgState(prg, layout);
+        // unfolds the compound statements and runs the declarations, the fork is left
+        for (int i = 0; i < 2 * vars; i++) { state.oneStep(); }
+        LongSupplier allocatedBytes = allocatedBytes();
+
+        // the last rounds are printed, the ones before warm up the JIT
+        for (int round = 0; round < ROUNDS; round++) {
+            long bytes = allocatedBytes.getAsLong();
+            long start = System.nanoTime();
+            for (int i = 0; i < forks; i++) {
+                PrgState child = fork.execute(state);
+                state.getSymTable().put("x" + (vars - 1), new IntValue(i));
+                child.getSymTable().put("x0", new IntValue(i));
+            }
+            long time = System.nanoTime() - start;
+            bytes = allocatedBytes.getAsLong() - bytes;
+            if (round >= ROUNDS - 3) System.out.printf("vars=%d  %d ns/fork  %d bytes/fork%n", vars, time / forks, bytes / forks);
+        }
+    }
+
+    // com.sun.management's counter through reflection, so the module needs no jdk.management
+    private static LongSupplier allocatedBytes() throws ReflectiveOperationException {
+        Object threads = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+        Method counter = Class.forName("com.sun.management.ThreadMXBean").getMethod("getCurrentThreadAllocatedBytes");
+        return () -> {
+            try {
+                return (long) counter.invoke(threads);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
@@ -1,5 +1,10 @@
 package com.example.model.statements;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.PrgState;
 import com.example.model.exceptions.MyException;
@@ -22,9 +27,22 @@ public class ForkStmt implements IStmt {
 
     @Override
     public PrgState execute(PrgState prg) {
-        return new PrgState(stmt, prg.getSymTable().deepCopy(), prg.getOut(), prg.getFileTable(), prg.getHeap(), prg.getSemaphoreTable());
+        PrgState child = new PrgState(stmt, prg.getSymTable().deepCopy(), prg.getOut(), prg.getFileTable(), prg.getHeap(), prg.getSemaphoreTable());
+        child.setHeapQuota(prg.getHeapQuota());
+        return child;
     }
     
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emitFork(stmt);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.FORK);
+        out.writeStmt(stmt);
+    }
+
     @Override
     public IStmt deepCopy() {
         return new ForkStmt(stmt.deepCopy());
@@ -1,13 +1,20 @@
 package com.example.model.statements;
 
+import java.io.IOException;
+
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.types.Type;
 import com.example.model.PrgState;
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.SnapshotWriter;
 import com.example.model.exceptions.MyException;
 
 public interface IStmt {
     MyIDictionary<String, Type> typeCheck(MyIDictionary<String, Type> typeEnv) throws MyException;
     PrgState execute(PrgState prg) throws MyException;
+    void compile(BytecodeCompiler compiler);
+    // the node and its children, in the order SnapshotReader reads them back
+    void write(SnapshotWriter out) throws IOException;
     String toString();
     IStmt deepCopy();
 }
\ No newline at end of file
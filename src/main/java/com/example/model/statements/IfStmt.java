@@ -1,12 +1,18 @@
 package com.example.model.statements;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.PrgState;
 import com.example.model.exceptions.MyException;
 import com.example.model.exceptions.StmtException;
 import com.example.model.expressions.Exp;
 import com.example.model.types.Type;
-import com.example.model.types.BoolType;
+import com.example.model.types.Types;
 import com.example.model.values.BoolValue;
 import com.example.model.values.Value;
 
@@ -24,7 +30,7 @@ public class IfStmt implements IStmt {
     @Override
     public MyIDictionary<String, Type> typeCheck(MyIDictionary<String, Type> typeEnv) throws MyException {
         Type typexp = exp.typeCheck(typeEnv);
-        if (!typexp.equals(new BoolType())) { throw new MyException("If statement: Expression is not a boolean"); }
+        if (!typexp.equals(Types.BOOL)) { throw new MyException("If statement: Expression is not a boolean"); }
 
         thenS.typeCheck(typeEnv.deepCopy());
         elseS.typeCheck(typeEnv.deepCopy());
@@ -38,7 +44,7 @@ public class IfStmt implements IStmt {
         try { val = exp.eval(prg.getSymTable(), prg.getHeap()); }
         catch (MyException e) { throw new StmtException("If statement: " + e.getMessage()); }
 
-        if (!val.getType().equals(new BoolType())) { throw new StmtException("If statement: Expression is not a boolean"); }
+        if (val.getType() != Types.BOOL) { throw new StmtException("If statement: Expression is not a boolean"); }
 
         BoolValue b = (BoolValue) val;
         if (b.getValue()) { prg.getExeStack().push(thenS); } 
@@ -47,6 +53,25 @@ public class IfStmt implements IStmt {
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        exp.compile(compiler);
+        int toElse = compiler.emit(OpCode.JUMP_IF_FALSE);
+        thenS.compile(compiler);
+        int toEnd = compiler.emit(OpCode.JUMP);
+        compiler.patch(toElse, compiler.label());
+        elseS.compile(compiler);
+        compiler.patch(toEnd, compiler.label());
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.IF);
+        out.writeExp(exp);
+        out.writeStmt(thenS);
+        out.writeStmt(elseS);
+    }
+
     @Override
     public IStmt deepCopy() {
         return new IfStmt(exp.deepCopy(), thenS.deepCopy(), elseS.deepCopy());
@@ -1,5 +1,11 @@
 package com.example.model.statements;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.PrgState;
 import com.example.model.exceptions.MyException;
@@ -23,6 +29,16 @@ public class NoOpStmt implements IStmt {
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emit(OpCode.EXEC, null, this);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.NO_OP);
+    }
+
     @Override
     public IStmt deepCopy() {
         return new NoOpStmt();
@@ -1,5 +1,11 @@
 package com.example.model.statements;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.PrgState;
 import com.example.model.exceptions.StmtException;
@@ -32,6 +38,18 @@ public class PrintStmt implements IStmt {
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        exp.compile(compiler);
+        compiler.emit(OpCode.PRINT);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.PRINT);
+        out.writeExp(exp);
+    }
+
     @Override
     public IStmt deepCopy() {
         return new PrintStmt(exp.deepCopy());
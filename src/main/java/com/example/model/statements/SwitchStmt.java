@@ -1,6 +1,12 @@
 package com.example.model.statements;
 
+import java.io.IOException;
 
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.enums.CompareOperation;
 import com.example.model.expressions.CompareExp;
@@ -63,6 +69,41 @@ public class SwitchStmt implements IStmt {
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        // same shape as the nested ifs built by execute
+        exp.compile(compiler);
+        exp1.compile(compiler);
+        compiler.emit(OpCode.COMPARE, null, CompareOperation.EQUAL);
+        int toCase2 = compiler.emit(OpCode.JUMP_IF_FALSE);
+        stmt1.compile(compiler);
+        int fromCase1 = compiler.emit(OpCode.JUMP);
+
+        compiler.patch(toCase2, compiler.label());
+        exp.compile(compiler);
+        exp2.compile(compiler);
+        compiler.emit(OpCode.COMPARE, null, CompareOperation.EQUAL);
+        int toDefault = compiler.emit(OpCode.JUMP_IF_FALSE);
+        stmt2.compile(compiler);
+        int fromCase2 = compiler.emit(OpCode.JUMP);
+
+        compiler.patch(toDefault, compiler.label());
+        stmt3.compile(compiler);
+        compiler.patch(fromCase1, compiler.label());
+        compiler.patch(fromCase2, compiler.label());
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.SWITCH);
+        out.writeExp(exp);
+        out.writeExp(exp1);
+        out.writeStmt(stmt1);
+        out.writeExp(exp2);
+        out.writeStmt(stmt2);
+        out.writeStmt(stmt3);
+    }
+
     @Override
     public IStmt deepCopy() {
         return new SwitchStmt(exp.deepCopy(), exp1.deepCopy(), stmt1.deepCopy(), exp2.deepCopy(), stmt2.deepCopy(), stmt3.deepCopy());
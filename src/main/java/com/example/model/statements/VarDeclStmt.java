@@ -1,6 +1,13 @@
 package com.example.model.statements;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
+import com.example.collections.frame.FrameSlot;
 import com.example.model.PrgState;
 import com.example.model.exceptions.MyException;
 import com.example.model.exceptions.VariableAlreadyDefined;
@@ -10,15 +17,18 @@ import com.example.model.types.Type;
 public class VarDeclStmt implements IStmt {
     String id;
     Type type;
+    FrameSlot slot;
 
     public VarDeclStmt(String id, Type type) {
         this.id = id;
         this.type = type;
+        this.slot = new FrameSlot(id);
     }
 
     @Override
     public MyIDictionary<String, Type> typeCheck(MyIDictionary<String, Type> typeEnv) throws MyException {
         typeEnv.put(id, type);
+        slot.resolve(typeEnv);
         return typeEnv;
     }
 
@@ -26,13 +36,25 @@ public class VarDeclStmt implements IStmt {
     public PrgState execute(PrgState prg) throws VariableAlreadyDefined {
         MyIDictionary<String, Value> symTable = prg.getSymTable();
 
-        if (symTable.containsKey(id)) { throw new VariableAlreadyDefined("Variable " + id + " is already defined"); }
+        if (slot.get(symTable) != null) { throw new VariableAlreadyDefined("Variable " + id + " is already defined"); }
 
-        symTable.put(id, type.defaultValue());
+        slot.set(symTable, type.defaultValue());
 
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emit(OpCode.DECLARE, id, type);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.VAR_DECL);
+        out.writeString(id);
+        out.writeType(type);
+    }
+
     @Override
     public IStmt deepCopy() {
         return new VarDeclStmt(id, type);
@@ -1,12 +1,18 @@
 package com.example.model.statements;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.exceptions.MyException;
 import com.example.model.expressions.Exp;
 import com.example.model.values.BoolValue;
 import com.example.model.PrgState;
 import com.example.model.types.Type;
-import com.example.model.types.BoolType;
+import com.example.model.types.Types;
 import com.example.model.values.Value;
 
 
@@ -22,7 +28,7 @@ public class WhileStmt implements IStmt {
     @Override
     public MyIDictionary<String, Type> typeCheck(MyIDictionary<String, Type> typeEnv) throws MyException {
         Type typexp = exp.typeCheck(typeEnv);
-        if (!typexp.equals(new BoolType())) { throw new MyException("While statement: Expression is not a boolean"); }
+        if (!typexp.equals(Types.BOOL)) { throw new MyException("While statement: Expression is not a boolean"); }
 
         stmt.typeCheck(typeEnv.deepCopy());
 
@@ -35,7 +41,7 @@ public class WhileStmt implements IStmt {
         var heap = prg.getHeap();
 
         Value val = exp.eval(symTbl, heap);
-        if (!val.getType().equals(new BoolType())) { throw new MyException("Expression is not a boolean"); }
+        if (val.getType() != Types.BOOL) { throw new MyException("Expression is not a boolean"); }
 
         BoolValue boolVal = (BoolValue) val;
         if (boolVal.getValue()) {
@@ -46,6 +52,24 @@ public class WhileStmt implements IStmt {
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        int start = compiler.label();
+        exp.compile(compiler);
+        int toEnd = compiler.emit(OpCode.JUMP_IF_FALSE);
+        stmt.compile(compiler);
+        int back = compiler.emit(OpCode.JUMP);
+        compiler.patch(back, start);
+        compiler.patch(toEnd, compiler.label());
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.WHILE);
+        out.writeExp(exp);
+        out.writeStmt(stmt);
+    }
+
     @Override 
     public String toString() {
         return "while(" + exp.toString() + ") {" + stmt.toString() + "}";
@@ -1,9 +1,13 @@
 package com.example.model.statements.file;
 
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.statements.IStmt;
 import com.example.model.types.Type;
-import com.example.model.types.StringType;
+import com.example.model.types.Types;
 import com.example.model.values.StringValue;
 import com.example.model.values.Value;
 import com.example.model.PrgState;
@@ -13,6 +17,7 @@ import com.example.model.expressions.Exp;
 
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 
 
 public class CloseFileStmt implements IStmt {
@@ -25,7 +30,7 @@ public class CloseFileStmt implements IStmt {
     @Override
     public MyIDictionary<String, Type> typeCheck(MyIDictionary<String, Type> typeEnv) throws MyException {
         Type expType = exp.typeCheck(typeEnv);
-        if (!expType.equals(new StringType())) { throw new MyException("Close File Stmt: expression is not a string"); }
+        if (!expType.equals(Types.STRING)) { throw new MyException("Close File Stmt: expression is not a string"); }
 
         return typeEnv;
     }
@@ -36,7 +41,7 @@ public class CloseFileStmt implements IStmt {
         try { val = exp.eval(state.getSymTable(), state.getHeap()); }
         catch (MyException e) { throw new StmtException("Error evaluating expression: " + e.getMessage()); }
 
-        if (!val.getType().equals(new StringType())) { throw new StmtException("Expression is not a string"); }
+        if (val.getType() != Types.STRING) { throw new StmtException("Expression is not a string"); }
 
         MyIDictionary<StringValue, BufferedReader> fileTable = state.getFileTable();
         StringValue file = (StringValue) val;
@@ -53,7 +58,18 @@ public class CloseFileStmt implements IStmt {
             throw new StmtException("Error closing file");
         }
 
-        return state;
+        return null;
+    }
+
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emit(OpCode.EXEC, null, this);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.CLOSE_FILE);
+        out.writeExp(exp);
     }
 
     @Override
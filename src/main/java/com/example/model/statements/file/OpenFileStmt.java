@@ -1,19 +1,25 @@
 package com.example.model.statements.file;
 
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.exceptions.MyException;
 import com.example.model.exceptions.StmtException;
 import com.example.model.statements.IStmt;
 import com.example.model.PrgState;
 import com.example.model.types.Type;
+import com.example.model.types.Types;
 import com.example.model.values.StringValue;
 import com.example.model.values.Value;
-import com.example.model.types.StringType;
 import com.example.model.expressions.Exp;
 
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.LineNumberReader;
+import java.io.IOException;
 
 
 public class OpenFileStmt implements IStmt {
@@ -26,7 +32,7 @@ public class OpenFileStmt implements IStmt {
     @Override
     public MyIDictionary<String, Type> typeCheck(MyIDictionary<String, Type> typeEnv) throws MyException {
         Type expType = exp.typeCheck(typeEnv);
-        if (!expType.equals(new StringType())) { throw new MyException("Open File Stmt: expression is not a string"); }
+        if (!expType.equals(Types.STRING)) { throw new MyException("Open File Stmt: expression is not a string"); }
 
         return typeEnv;
     }
@@ -37,7 +43,7 @@ public class OpenFileStmt implements IStmt {
         try { val = exp.eval(state.getSymTable(), state.getHeap()); }
         catch (MyException e) { throw new StmtException("Error evaluating expression: " + e.getMessage()); }
 
-        if (!val.getType().equals(new StringType())) { throw new StmtException("Expression is not a string"); }
+        if (val.getType() != Types.STRING) { throw new StmtException("Expression is not a string"); }
 
         MyIDictionary<StringValue, BufferedReader> fileTable = state.getFileTable();
         StringValue file = (StringValue) val;
@@ -45,13 +51,33 @@ public class OpenFileStmt implements IStmt {
         if (fileTable.containsKey(file)) { throw new StmtException("File already opened"); }
 
         try {
-            BufferedReader reader = new BufferedReader(new FileReader(file.getValue()));
+            // counts the lines read, so a suspended run can open the file again at the same line
+            BufferedReader reader = new LineNumberReader(new FileReader(file.getValue()));
             fileTable.put(file, reader);
         } catch (FileNotFoundException e) {
             throw new StmtException("File not found");
         }
 
-        return state;
+        return null;
+    }
+
+    // Opens the file again past its first lines, where a reader that counted its lines was. A
+    // reader can't be rewound, so a checkpoint or a suspended run keeps the line instead.
+    public static LineNumberReader reopen(String file, int line) throws IOException {
+        LineNumberReader reader = new LineNumberReader(new FileReader(file));
+        while (reader.getLineNumber() < line && reader.readLine() != null) {}
+        return reader;
+    }
+
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emit(OpCode.EXEC, null, this);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.OPEN_FILE);
+        out.writeExp(exp);
     }
 
     @Override
@@ -5,25 +5,31 @@ import java.io.IOException;
 
 import com.example.collections.heap.MyIHeap;
 import com.example.collections.dictionary.MyIDictionary;
+import com.example.collections.frame.FrameSlot;
 import com.example.model.exceptions.MyException;
 import com.example.model.exceptions.StmtException;
 import com.example.model.statements.IStmt;
 import com.example.model.types.Type;
-import com.example.model.types.IntType;
+import com.example.model.types.Types;
 import com.example.model.PrgState;
 import com.example.model.expressions.Exp;
 import com.example.model.values.Value;
 import com.example.model.values.StringValue;
-import com.example.model.types.StringType;
 import com.example.model.values.IntValue;
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 
 public class ReadFileStmt implements IStmt {
     private Exp exp;
     private String varName;
+    private FrameSlot slot;
 
     public ReadFileStmt(Exp exp, String varName) {
         this.exp = exp;
         this.varName = varName;
+        this.slot = new FrameSlot(varName);
     }
 
     public String getVarName() { return varName; }
@@ -32,11 +38,12 @@ public class ReadFileStmt implements IStmt {
     @Override
     public MyIDictionary<String, Type> typeCheck(MyIDictionary<String, Type> typeEnv) throws MyException {
         Type expType = exp.typeCheck(typeEnv);
-        if (!expType.equals(new StringType())) { throw new MyException("Read File Stmt: expression is not a string"); }
+        if (!expType.equals(Types.STRING)) { throw new MyException("Read File Stmt: expression is not a string"); }
 
         if (!typeEnv.containsKey(varName)) { throw new MyException("Read File Stmt: variable " + varName + " is not defined"); }
 
-        if (!typeEnv.get(varName).equals(new IntType())) { throw new MyException("Read File Stmt: variable " + varName + " is not an integer"); }
+        if (!typeEnv.get(varName).equals(Types.INT)) { throw new MyException("Read File Stmt: variable " + varName + " is not an integer"); }
+        slot.resolve(typeEnv);
 
         return typeEnv;
     }
@@ -46,15 +53,15 @@ public class ReadFileStmt implements IStmt {
         MyIDictionary<String, Value> symTable = state.getSymTable();
         MyIHeap<Integer, Value> heapTable = state.getHeap();
 
-        if (!symTable.containsKey(varName)) { throw new StmtException("Variable not declared"); }
-        Value varVal = symTable.get(varName);
-        if (!varVal.getType().equals(new IntType())) { throw new StmtException("Variable is not an integer"); }
+        Value varVal = slot.get(symTable);
+        if (varVal == null) { throw new StmtException("Variable not declared"); }
+        if (varVal.getType() != Types.INT) { throw new StmtException("Variable is not an integer"); }
 
         Value val;
         try { val = exp.eval(symTable, heapTable); }
         catch (MyException e) { throw new StmtException("Error evaluating expression: " + e.getMessage()); }
 
-        if (!val.getType().equals(new StringType())) { throw new StmtException("Expression is not a string"); }
+        if (val.getType() != Types.STRING) { throw new StmtException("Expression is not a string"); }
 
         MyIDictionary<StringValue, BufferedReader> fileTable = state.getFileTable();
         StringValue file = (StringValue) val;
@@ -66,16 +73,28 @@ public class ReadFileStmt implements IStmt {
             String line = reader.readLine();
             // if (line == null) { throw new StmtException("End of file reached"); }
             if (line == null) {
-                symTable.put(varName, new IntValue(0));
-                return state;
+                slot.set(symTable, new IntValue(0));
+                return null;
             }
             int number = Integer.parseInt(line);
-            symTable.put(varName, new IntValue(number));
+            slot.set(symTable, new IntValue(number));
         } catch (IOException e) {
             throw new StmtException("Error reading from file");
         }
 
-        return state;
+        return null;
+    }
+
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emit(OpCode.EXEC, null, this);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.READ_FILE);
+        out.writeExp(exp);
+        out.writeString(varName);
     }
 
     @Override
@@ -1,13 +1,19 @@
 package com.example.model.statements.heap;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
-import com.example.collections.heap.MyHeap;
+import com.example.collections.frame.FrameSlot;
 import com.example.model.statements.IStmt;
 import com.example.model.PrgState;
 import com.example.model.exceptions.MyException;
 import com.example.model.expressions.Exp;
 import com.example.model.types.Type;
-import com.example.model.types.RefType;
+import com.example.model.types.Types;
 import com.example.model.values.Value;
 import com.example.model.values.RefValue;
 
@@ -15,10 +21,12 @@ import com.example.model.values.RefValue;
 public class NewHeapStmt implements IStmt {
     private String varName;
     private Exp exp;
+    private FrameSlot slot;
 
     public NewHeapStmt(String varName, Exp exp) { 
         this.varName = varName;
         this.exp = exp;
+        this.slot = new FrameSlot(varName);
     }
 
     public String getVarName() { return varName; }
@@ -30,7 +38,8 @@ public class NewHeapStmt implements IStmt {
         Type varType = typeEnv.get(varName);
         Type expType = exp.typeCheck(typeEnv);
 
-        if (!varType.equals(new RefType(expType))) { throw new MyException("New statement: right hand side and left hand side have different types"); }
+        if (!varType.equals(Types.ref(expType))) { throw new MyException("New statement: right hand side and left hand side have different types"); }
+        slot.resolve(typeEnv);
 
         return typeEnv;
     }
@@ -40,19 +49,37 @@ public class NewHeapStmt implements IStmt {
         var symTable = state.getSymTable();
         var heapTable = state.getHeap();
 
-        if (!symTable.containsKey(varName)) { throw new MyException("Variable " + varName + " is not defined"); }
+        if (slot.get(symTable) == null) { throw new MyException("Variable " + varName + " is not defined"); }
 
         Value val = exp.eval(symTable, heapTable);
-        // Integer address = heapTable.getNextFreeAddress();
-        Integer address = MyHeap.getNextAddr();
+        // no room in the heap quota: runs again once the requested collection freed some
+        if (!state.reserveCell(val)) {
+            state.getExeStack().push(this);
+            return null;
+        }
+        int address = state.allocateAddress();
         RefValue refVal = new RefValue(address, val.getType());
 
         heapTable.put(address, val);
-        symTable.put(varName, refVal);
+        heapTable.recordAllocation();
+        slot.set(symTable, refVal);
 
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        exp.compile(compiler);
+        compiler.emit(OpCode.NEW_HEAP, varName);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.NEW_HEAP);
+        out.writeString(varName);
+        out.writeExp(exp);
+    }
+
     @Override
     public String toString() { return "new(" + varName + ", " + exp.toString() + ")"; }
 
@@ -1,21 +1,31 @@
 package com.example.model.statements.heap;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
+import com.example.collections.frame.FrameSlot;
 import com.example.model.statements.IStmt;
 import com.example.model.values.RefValue;
 import com.example.model.PrgState;
 import com.example.model.types.Type;
-import com.example.model.types.RefType;
+import com.example.model.types.Types;
+import com.example.model.exceptions.InvalidAddressException;
 import com.example.model.exceptions.MyException;
 import com.example.model.expressions.Exp;
 
 public class WriteHeapStmt implements IStmt {
     private String varName;
     private Exp exp;
+    private FrameSlot slot;
 
     public WriteHeapStmt(String varName, Exp exp) {
         this.varName = varName;
         this.exp = exp;
+        this.slot = new FrameSlot(varName);
     }
 
     public String getVarName() { return varName; }
@@ -28,7 +38,8 @@ public class WriteHeapStmt implements IStmt {
         Type varType = typeEnv.get(varName);
         Type expType = exp.typeCheck(typeEnv);
 
-        if (!varType.equals(new RefType(expType))) { throw new MyException("Write Heap Stmt: right hand side and left hand side have different types"); }
+        if (!varType.equals(Types.ref(expType))) { throw new MyException("Write Heap Stmt: right hand side and left hand side have different types"); }
+        slot.resolve(typeEnv);
 
         return typeEnv;
     }
@@ -39,26 +50,36 @@ public class WriteHeapStmt implements IStmt {
         var heapTable = state.getHeap();
 
         // Check if the variable is defined
-        if (!symTable.containsKey(varName)) { throw new MyException("Variable " + varName + " is not defined"); }
-
-        var value = symTable.get(varName);
+        var value = slot.get(symTable);
+        if (value == null) { throw new MyException("Variable " + varName + " is not defined"); }
 
         // Check if the variable is a reference type
         if (!(value instanceof RefValue)) { throw new MyException("Variable " + varName + " is not a reference"); }
         RefValue refValue = (RefValue) value;
 
         int address = refValue.getAddress();
-
-        // Check if the address from the ref value associated is defined in the heap
-        if (!heapTable.containsKey(address)) { throw new MyException("Address " + value + " is not defined in the heap"); }
-
         var val = exp.eval(symTable, heapTable);
 
-        heapTable.put(address, val);
+        // The address from the ref value has to be defined in the heap, only then the value is stored
+        if (heapTable.replace(address, val) == null) { throw new InvalidAddressException("Address " + value + " is not defined in the heap"); }
+        heapTable.recordWrite(address);
 
         return null; 
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        exp.compile(compiler);
+        compiler.emit(OpCode.WRITE_HEAP, varName);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.WRITE_HEAP);
+        out.writeString(varName);
+        out.writeExp(exp);
+    }
+
     @Override
     public String toString() { return "wH(" + varName + ", " + exp.toString() + ")"; }
 
@@ -1,8 +1,7 @@
 package com.example.model.statements.semaphore;
 
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.Lock;
-import java.util.List;
+import java.io.IOException;
+
 
 
 import com.example.model.statements.IStmt;
@@ -11,17 +10,17 @@ import com.example.model.exceptions.MyException;
 import com.example.model.exceptions.StmtException;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.types.Type;
+import com.example.model.types.Types;
 import com.example.model.values.IntValue;
-import com.example.model.types.IntType;
-
-import javafx.util.Pair;
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 
 
 public class AcquireStmt implements IStmt {
     // AcquireStmt(var) -> var is the name of the variable
     private String var;
-    // lock used to synchronize the access to the semaphore table
-    private static final Lock lock = new ReentrantLock();
 
     public AcquireStmt(String var) {
         // Constructor for the AcquireStmt class
@@ -35,7 +34,7 @@ public class AcquireStmt implements IStmt {
 
         // check if the variable is an integer
         Type varType = typeEnv.get(var);
-        if (!varType.equals(new IntType())) { throw new MyException("Variable " + var + " is not an integer"); }
+        if (!varType.equals(Types.INT)) { throw new MyException("Variable " + var + " is not an integer"); }
 
         // return the type environment
         return typeEnv;
@@ -43,47 +42,39 @@ public class AcquireStmt implements IStmt {
 
     @Override
     public PrgState execute(PrgState prg) throws MyException, StmtException {
-        // Lock the semaphore table
-        lock.lock();
-
-        try {
-            // Get the symbol table and semaphore table
-            var symTbl = prg.getSymTable();
-            var semTbl = prg.getSemaphoreTable();
-
-            // Check if the variable is defined and is an integer
-            if (!symTbl.containsKey(var)) { throw new StmtException("Variable " + var + " is not defined"); }
-            if (!symTbl.get(var).getType().equals(new IntType())) { throw new StmtException("Variable " + var + " is not an integer"); }
-
-            // Get the integer value of the variable
-            IntValue idx = (IntValue) symTbl.get(var);
-            int index = idx.getValue();
-
-            // Check if the semaphore is defined
-            if (!semTbl.containsKey(index)) { throw new StmtException("Semaphore " + index + " is not defined"); }
-
-            // Get the semaphore value
-            Pair<Integer, List<Integer>> sem = semTbl.get(index);
-            // Get the number of available permits and the list of processes that are waiting
-            int nl = sem.getValue().size();
-            int n1 = sem.getKey();
-
-            // If there are available permits, decrement the number of available permits
-            // and add the current process to the list of processes that are waiting else push the current statement on the execution stack
-            if (n1 > nl) {
-                if (!sem.getValue().contains(prg.getId())) {
-                    sem.getValue().add(prg.getId());
-                    semTbl.update(index, new Pair<>(n1, sem.getValue()));
-                }
-            } else {
-                prg.getExeStack().push(this);
-            }
-
-            return null;
-        } finally {
-            // Unlock the semaphore table
-            lock.unlock();
+        // Get the symbol table and semaphore table
+        var symTbl = prg.getSymTable();
+        var semTbl = prg.getSemaphoreTable();
+
+        // Check if the variable is defined and is an integer
+        if (!symTbl.containsKey(var)) { throw new StmtException("Variable " + var + " is not defined"); }
+        if (symTbl.get(var).getType() != Types.INT) { throw new StmtException("Variable " + var + " is not an integer"); }
+
+        // Get the integer value of the variable
+        IntValue idx = (IntValue) symTbl.get(var);
+        int index = idx.getValue();
+
+        // Check if the semaphore is defined
+        if (!semTbl.containsKey(index)) { throw new StmtException("Semaphore " + index + " is not defined"); }
+
+        // Take a permit, else push the current statement back on the execution stack;
+        // the program stays blocked in the semaphore's wait queue until a release wakes it
+        if (!semTbl.tryAcquire(index, prg)) {
+            prg.getExeStack().push(this);
         }
+
+        return null;
+    }
+
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emit(OpCode.EXEC, null, this);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.ACQUIRE);
+        out.writeString(var);
     }
 
     @Override
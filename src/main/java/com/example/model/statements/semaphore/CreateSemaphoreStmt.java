@@ -1,28 +1,27 @@
 package com.example.model.statements.semaphore;
 
+import java.io.IOException;
+
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.snapshot.NodeTag;
+import com.example.model.snapshot.SnapshotWriter;
+import com.example.model.bytecode.OpCode;
 import com.example.collections.dictionary.MyIDictionary;
 import com.example.model.exceptions.MyException;
-import com.example.model.types.IntType;
 import com.example.model.types.Type;
+import com.example.model.types.Types;
 import com.example.model.statements.IStmt;
 import com.example.model.PrgState;
 import com.example.model.exceptions.StmtException;
 import com.example.model.expressions.Exp;
 import com.example.model.values.IntValue;
 
-import javafx.util.Pair;
-
-import java.util.ArrayList;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 
 public class CreateSemaphoreStmt implements IStmt {
     // CreateSemaphoreStmt(var, exp) -> var is the name of the variable and exp is the expression that will be evaluated
     private final String var;
     private final Exp exp;
-    // lock used to synchronize the access to the semaphore table
-    private static final Lock lock = new ReentrantLock();
 
     public CreateSemaphoreStmt(String var, Exp exp) {
         // Constructor for the CreateSemaphoreStmt class
@@ -38,47 +37,51 @@ public class CreateSemaphoreStmt implements IStmt {
         Type varType = typeEnv.get(var);
         Type expType = exp.typeCheck(typeEnv);
 
-        if (!varType.equals(new IntType())) { throw new MyException("Variable " + var + " is not an integer"); }
-        if (!expType.equals(new IntType())) { throw new MyException("Expression is not an integer"); }
+        if (!varType.equals(Types.INT)) { throw new MyException("Variable " + var + " is not an integer"); }
+        if (!expType.equals(Types.INT)) { throw new MyException("Expression is not an integer"); }
 
         return typeEnv;
     }
 
     @Override
     public PrgState execute(PrgState prg) throws MyException, StmtException {
-        // Lock the semaphore table
-        lock.lock();
-
         // Get the symbol table, heap and semaphore table
         var symTbl = prg.getSymTable();
         var heap = prg.getHeap();
         var semTbl = prg.getSemaphoreTable();
 
+        if (!symTbl.containsKey(var)) { throw new StmtException("Variable " + var + " is not defined"); }
+        if (symTbl.get(var).getType() != Types.INT) { throw new StmtException("Variable " + var + " is not an integer"); }
+
         // Evaluate the expression
         IntValue val = (IntValue) exp.eval(symTbl, heap);
         // Get the integer value of the expression
         int number = val.getValue();
 
-        // Get the next free address in the semaphore table
-        int freeAddress = semTbl.getFreeAddress();
-
-        // Put the free address in the semaphore table
-        semTbl.put(freeAddress, new Pair<>(number, new ArrayList<>()));
-
-        if (!symTbl.containsKey(var)) { throw new StmtException("Variable " + var + " is not defined"); }
-        if (!symTbl.get(var).getType().equals(new IntType())) { throw new StmtException("Variable " + var + " is not an integer"); }
+        // Add the semaphore at the next free address of the semaphore table
+        int freeAddress = semTbl.create(number);
 
         // Put the free address in the symbol table
         symTbl.put(var, new IntValue(freeAddress));
 
-        // Unlock the semaphore table
-        lock.unlock();
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emit(OpCode.EXEC, null, this);
+    }
+
+    @Override
+    public void write(SnapshotWriter out) throws IOException {
+        out.writeTag(NodeTag.CREATE_SEMAPHORE);
+        out.writeString(var);
+        out.writeExp(exp);
+    }
+
     @Override
     public IStmt deepCopy() {
-        return new CreateSemaphoreStmt(this.var, this.exp); 
+        return new CreateSemaphoreStmt(this.var, this.exp.deepCopy()); 
     }
 
     @Override
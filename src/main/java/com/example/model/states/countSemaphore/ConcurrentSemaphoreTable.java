@@ -0,0 +1,206 @@
+package com.example.model.states.countSemaphore;
+
+import javafx.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.example.model.PrgState;
+import com.example.model.exceptions.MyException;
+
+// Every semaphore is an independent atomic cell holding an immutable state, so operations
+// on different semaphores never touch the same memory and readers never block writers.
+public class ConcurrentSemaphoreTable implements ISemaphoreTable {
+    // immutable value of one semaphore: the permits and the sorted ids of the holders
+    private static final class State {
+        final int permits;
+        final int[] holders;
+
+        State(int permits, int[] holders) {
+            this.permits = permits;
+            this.holders = holders;
+        }
+
+        boolean holds(int id) { return Arrays.binarySearch(holders, id) >= 0; }
+
+        State with(int id) {
+            int pos = -Arrays.binarySearch(holders, id) - 1;
+            int[] h = new int[holders.length + 1];
+            System.arraycopy(holders, 0, h, 0, pos);
+            h[pos] = id;
+            System.arraycopy(holders, pos, h, pos + 1, holders.length - pos);
+            return new State(permits, h);
+        }
+
+        State without(int id) {
+            int pos = Arrays.binarySearch(holders, id);
+            int[] h = new int[holders.length - 1];
+            System.arraycopy(holders, 0, h, 0, pos);
+            System.arraycopy(holders, pos + 1, h, pos, holders.length - pos - 1);
+            return new State(permits, h);
+        }
+
+        List<Integer> holderList() {
+            List<Integer> list = new ArrayList<>(holders.length);
+            for (int id : holders) list.add(id);
+            return list;
+        }
+    }
+
+    private static final class Semaphore {
+        final AtomicReference<State> state;
+        // programs blocked on this semaphore, in arrival order
+        final Queue<PrgState> waiting = new ConcurrentLinkedQueue<>();
+
+        Semaphore(State state) { this.state = new AtomicReference<>(state); }
+    }
+
+    private final ConcurrentHashMap<Integer, Semaphore> semaphores;
+    private final AtomicInteger freeLocation;
+
+    public ConcurrentSemaphoreTable() {
+        this.semaphores = new ConcurrentHashMap<>();
+        this.freeLocation = new AtomicInteger();
+    }
+
+    private Semaphore semaphore(int key) throws MyException {
+        Semaphore sem = semaphores.get(key);
+        if (sem == null) { throw new MyException(String.format("Semaphore table doesn't contain the key %d!", key)); }
+        return sem;
+    }
+
+    private static State toState(Pair<Integer, List<Integer>> value) {
+        int[] holders = value.getValue().stream().mapToInt(Integer::intValue).distinct().sorted().toArray();
+        return new State(value.getKey(), holders);
+    }
+
+    private static Pair<Integer, List<Integer>> toPair(State state) {
+        return new Pair<>(state.permits, state.holderList());
+    }
+
+    @Override
+    public int create(int permits) {
+        int key = freeLocation.incrementAndGet();
+        semaphores.put(key, new Semaphore(new State(permits, new int[0])));
+        return key;
+    }
+
+    @Override
+    public boolean tryAcquire(int key, PrgState prg) throws MyException {
+        Semaphore sem = semaphore(key);
+        int id = prg.getId();
+        while (true) {
+            State crt = sem.state.get();
+            if (crt.holders.length < crt.permits) {
+                if (crt.holds(id) || sem.state.compareAndSet(crt, crt.with(id))) return true;
+                continue;
+            }
+
+            // blocked before queueing so a release that polls the program always sees it blocked
+            prg.setBlocked(true);
+            sem.waiting.add(prg);
+            // a release may have freed a permit before the program was queued; if so, and no
+            // release took it out of the queue yet, the program wakes itself and retries
+            State now = sem.state.get();
+            if (now.holders.length < now.permits && sem.waiting.remove(prg)) prg.wake();
+            return false;
+        }
+    }
+
+    @Override
+    public void release(int key, PrgState prg) throws MyException {
+        Semaphore sem = semaphore(key);
+        int id = prg.getId();
+        State crt;
+        do {
+            crt = sem.state.get();
+            if (!crt.holds(id)) return;
+        } while (!sem.state.compareAndSet(crt, crt.without(id)));
+
+        // the woken program retries its acquire, the permit is not handed over
+        PrgState next = sem.waiting.poll();
+        if (next != null) next.wake();
+    }
+
+    @Override
+    public ISemaphoreTable copy(Map<PrgState, PrgState> programs) {
+        ConcurrentSemaphoreTable copy = new ConcurrentSemaphoreTable();
+        copy.freeLocation.set(freeLocation.get());
+        semaphores.forEach((key, sem) -> {
+            Semaphore s = new Semaphore(sem.state.get());
+            for (PrgState prg : sem.waiting) {
+                PrgState waiting = programs.get(prg);
+                if (waiting != null) s.waiting.add(waiting);
+            }
+            copy.semaphores.put(key, s);
+        });
+        return copy;
+    }
+
+    @Override
+    public void put(int key, Pair<Integer, List<Integer>> value) throws MyException {
+        if (semaphores.putIfAbsent(key, new Semaphore(toState(value))) != null) {
+            throw new MyException("Semaphore table already contains the key!");
+        }
+    }
+
+    @Override
+    public Pair<Integer, List<Integer>> get(int key) throws MyException {
+        // a copy: changing it has no effect, use update
+        return toPair(semaphore(key).state.get());
+    }
+
+    @Override
+    public boolean containsKey(int key) { return semaphores.containsKey(key); }
+
+    @Override
+    public int getFreeAddress() { return freeLocation.incrementAndGet(); }
+
+    @Override
+    public void setFreeAddress(int freeAddress) { freeLocation.set(freeAddress); }
+
+    @Override
+    public void update(int key, Pair<Integer, List<Integer>> value) throws MyException {
+        semaphore(key).state.set(toState(value));
+    }
+
+    @Override
+    public HashMap<Integer, Pair<Integer, List<Integer>>> getSemaphoreTable() {
+        HashMap<Integer, Pair<Integer, List<Integer>>> snapshot = new HashMap<>();
+        semaphores.forEach((key, sem) -> snapshot.put(key, toPair(sem.state.get())));
+        return snapshot;
+    }
+
+    @Override
+    public void setSemaphoreTable(HashMap<Integer, Pair<Integer, List<Integer>>> newSemaphoreTable) {
+        semaphores.clear();
+        for (Map.Entry<Integer, Pair<Integer, List<Integer>>> e : newSemaphoreTable.entrySet()) {
+            semaphores.put(e.getKey(), new Semaphore(toState(e.getValue())));
+        }
+    }
+
+    // Every semaphore is read with a single atomic load, so each row is a state the
+    // semaphore really had; the threads keep running while the GUI reads it.
+    @Override
+    public List<Pair<Pair<Integer, Integer>, List<Integer>>> getSemaphoreDictionaryAsList() {
+        List<Pair<Pair<Integer, Integer>, List<Integer>>> answer = new ArrayList<>();
+        semaphores.forEach((key, sem) -> {
+            State s = sem.state.get();
+            answer.add(new Pair<>(new Pair<>(key, s.permits), s.holderList()));
+        });
+        return answer;
+    }
+
+    @Override
+    public String toString() {
+        return getSemaphoreTable().toString();
+    }
+}
@@ -2,9 +2,11 @@ package com.example.model.states.countSemaphore;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javafx.util.Pair;
 
+import com.example.model.PrgState;
 import com.example.model.exceptions.MyException;
 
 public interface ISemaphoreTable {
@@ -17,5 +19,13 @@ public interface ISemaphoreTable {
         HashMap<Integer, Pair<Integer, List<Integer>>> getSemaphoreTable();
         List<Pair<Pair<Integer, Integer>, List<Integer>>> getSemaphoreDictionaryAsList();
         void setSemaphoreTable(HashMap<Integer, Pair<Integer, List<Integer>>> newSemaphoreTable);
+        // adds a semaphore with the given permits and no holders, returns its key
+        int create(int permits);
+        // takes a permit for the program, or queues it as blocked if there is none left
+        boolean tryAcquire(int key, PrgState prg) throws MyException;
+        // gives back the permit of the program and wakes the first program waiting for it
+        void release(int key, PrgState prg) throws MyException;
+        // copy for a checkpoint: the same semaphores, the waiting programs replaced by their copies
+        ISemaphoreTable copy(Map<PrgState, PrgState> programs);
         String toString();
 }
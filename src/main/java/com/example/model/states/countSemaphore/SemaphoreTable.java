@@ -2,15 +2,21 @@ package com.example.model.states.countSemaphore;
 
 import javafx.util.Pair;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.example.model.PrgState;
 import com.example.model.exceptions.MyException;
 
 public class SemaphoreTable implements ISemaphoreTable {
 private HashMap<Integer, Pair<Integer, List<Integer>>> semaphoreTable;
+    // programs blocked on each semaphore, in arrival order
+    private final HashMap<Integer, Deque<PrgState>> waiting;
     // lock for synchronization purposes
     ReentrantLock lock;
     // freeLocation is used to keep track of the next free location in the semaphoreTable
@@ -19,6 +25,7 @@ private HashMap<Integer, Pair<Integer, List<Integer>>> semaphoreTable;
     public SemaphoreTable() { // constructor for SemaphoreTable
         // initialize semaphoreTable as a new HashMap
         this.semaphoreTable = new HashMap<>();
+        this.waiting = new HashMap<>();
         // initialize lock as a new ReentrantLock
         this.lock = new ReentrantLock();
     }
@@ -110,6 +117,62 @@ private HashMap<Integer, Pair<Integer, List<Integer>>> semaphoreTable;
         return answer;
     }
 
+    @Override
+    public int create(int permits) {
+        synchronized (this) {
+            int key = getFreeAddress();
+            semaphoreTable.put(key, new Pair<>(permits, new ArrayList<>()));
+            return key;
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(int key, PrgState prg) throws MyException {
+        synchronized (this) {
+            Pair<Integer, List<Integer>> sem = get(key);
+            List<Integer> holders = sem.getValue();
+            if (sem.getKey() > holders.size()) {
+                if (!holders.contains(prg.getId())) holders.add(prg.getId());
+                return true;
+            }
+            // blocked is set under the table lock so a release can't wake the program before it is queued
+            waiting.computeIfAbsent(key, k -> new ArrayDeque<>()).add(prg);
+            prg.setBlocked(true);
+            return false;
+        }
+    }
+
+    @Override
+    public void release(int key, PrgState prg) throws MyException {
+        PrgState next;
+        synchronized (this) {
+            Pair<Integer, List<Integer>> sem = get(key);
+            if (!sem.getValue().remove((Integer) prg.getId())) return;
+            Deque<PrgState> queue = waiting.get(key);
+            next = queue == null ? null : queue.poll();
+        }
+        // the woken program retries its acquire, the permit is not handed over
+        if (next != null) next.wake();
+    }
+
+    @Override
+    public ISemaphoreTable copy(Map<PrgState, PrgState> programs) {
+        synchronized (this) {
+            SemaphoreTable copy = new SemaphoreTable();
+            semaphoreTable.forEach((key, value) -> copy.semaphoreTable.put(key, new Pair<>(value.getKey(), new ArrayList<>(value.getValue()))));
+            waiting.forEach((key, queue) -> {
+                Deque<PrgState> copied = new ArrayDeque<>();
+                for (PrgState prg : queue) {
+                    PrgState waitingCopy = programs.get(prg);
+                    if (waitingCopy != null) copied.add(waitingCopy);
+                }
+                copy.waiting.put(key, copied);
+            });
+            copy.freeLocation = freeLocation;
+            return copy;
+        }
+    }
+
     @Override
     public String toString() {
         return semaphoreTable.toString();
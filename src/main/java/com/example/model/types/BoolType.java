@@ -9,6 +9,11 @@ public class BoolType implements Type {
         return other instanceof BoolType;
     }
 
+    @Override
+    public int hashCode() {
+        return 2;
+    }
+
     @Override
     public Value defaultValue() {
         return new BoolValue(false);
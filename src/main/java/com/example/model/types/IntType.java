@@ -9,6 +9,11 @@ public class IntType implements Type {
         return other instanceof IntType;
     }
 
+    @Override
+    public int hashCode() {
+        return 1;
+    }
+
     @Override
     public Value defaultValue() {
         return new IntValue(0);
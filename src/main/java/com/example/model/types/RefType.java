@@ -22,6 +22,11 @@ public class RefType implements Type {
         return false;
     }
 
+    @Override
+    public int hashCode() {
+        return 31 * inner.hashCode() + 4;
+    }
+
     @Override
     public String toString() {
         return "Ref(" + inner.toString() + ")";
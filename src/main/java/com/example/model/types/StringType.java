@@ -9,6 +9,11 @@ public class StringType implements Type {
         return other instanceof StringType;
     }
 
+    @Override
+    public int hashCode() {
+        return 3;
+    }
+
     @Override
     public Value defaultValue() {
         return new StringValue("");
@@ -4,6 +4,7 @@ import com.example.model.values.Value;
 
 public interface Type {
     boolean equals(Object other);
+    int hashCode();
     String toString();
     Value defaultValue();
 }
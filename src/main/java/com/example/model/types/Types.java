@@ -0,0 +1,33 @@
+package com.example.model.types;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Registry of canonical type instances. Values return these from getType(),
+// so runtime type checks can compare references instead of calling equals.
+public final class Types {
+    public static final IntType INT = new IntType();
+    public static final BoolType BOOL = new BoolType();
+    public static final StringType STRING = new StringType();
+
+    // canonical inner type -> canonical Ref(inner)
+    private static final Map<Type, RefType> refTypes = new ConcurrentHashMap<>();
+
+    private Types() {}
+
+    public static RefType ref(Type inner) {
+        Type canonical = intern(inner);
+        RefType ref = refTypes.get(canonical);
+        if (ref != null) return ref;
+        return refTypes.computeIfAbsent(canonical, RefType::new);
+    }
+
+    // returns the canonical instance structurally equal to the given type
+    public static Type intern(Type type) {
+        if (type instanceof IntType) return INT;
+        if (type instanceof BoolType) return BOOL;
+        if (type instanceof StringType) return STRING;
+        if (type instanceof RefType refType) return ref(refType.getInner());
+        return type;
+    }
+}
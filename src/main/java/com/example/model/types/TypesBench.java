@@ -0,0 +1,88 @@
+package com.example.model.types;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyFrame;
+import com.example.controller.Programs;
+import com.example.model.PrgState;
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.exceptions.MyException;
+import com.example.model.statements.IStmt;
+
+// Measures what the runtime type checks cost: steps every example of Programs on this thread,
+// all its programs in turn until they are done, and prints the bytes allocated and the time
+// taken by one run. Examples that don't type check or that open files are left out. The file
+// only uses what was there before the type registry, so it also compiles against a checkout of
+// the commit before it, which gives the numbers without the registry:
+//
+//   git worktree add /tmp/before <commit before the registry>
+//   javac -d /tmp/before-classes -cp <javafx jars> $(find /tmp/before/src/main/java -name '*.java' \
+//           ! -name module-info.java) src/main/java/com/example/model/types/TypesBench.java
+//   java -cp /tmp/before-classes:<javafx jars> com.example.model.types.TypesBench
+//
+//   TypesBench [runs] [vm]   runs of each example, 20000 by default; vm runs the bytecode
+public class TypesBench {
+    private static final int WARMUP_RUNS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        boolean vm = args.length > 1 && args[1].equals("vm");
+        LongSupplier allocatedBytes = allocatedBytes();
+
+        long totalBytes = 0;
+        int number = 0;
+        for (IStmt example : new Programs().getPrograms()) {
+            number++;
+            if (example.toString().contains("open(")) continue;
+            IStmt prg = example.deepCopy();
+            FrameLayout layout = new FrameLayout();
+            try {
+                prg.typeCheck(new MyFrame<>(layout));
+            } catch (MyException e) {
+                continue;
+            }
+            for (int i = 0; i < WARMUP_RUNS; i++) { run(prg, layout, vm); }
+            long bytes = allocatedBytes.getAsLong();
+            long start = System.nanoTime();
+            for (int i = 0; i < runs; i++) { run(prg, layout, vm); }
+            long time = System.nanoTime() - start;
+            bytes = allocatedBytes.getAsLong() - bytes;
+            totalBytes += bytes;
+            System.out.printf("ex%-3d %8d bytes/run %8d ns/run%n", number, bytes / runs, time / runs);
+        }
+        System.out.printf("all   %8d bytes/run%n", totalBytes / runs);
+    }
+
+    // The per-thread allocation counter of com.sun.management, looked up at run time so the
+    // module doesn't have to require jdk.management. Run from the class path it is always there.
+    private static LongSupplier allocatedBytes() throws ReflectiveOperationException {
+        Object threads = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+        Method counter = Class.forName("com.sun.management.ThreadMXBean").getMethod("getCurrentThreadAllocatedBytes");
+        return () -> {
+            try {
+                return (long) counter.invoke(threads);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static void run(IStmt prg, FrameLayout layout, boolean vm) throws MyException {
+        PrgState state = vm ? new PrgState(BytecodeCompiler.compile(prg)) : new PrgState(prg, layout);
+        List<PrgState> programs = new ArrayList<>(List.of(state));
+        while (!programs.isEmpty()) {
+            List<PrgState> next = new ArrayList<>();
+            for (PrgState program : programs) {
+                if (!program.isNotCompleted()) continue;
+                PrgState forked = program.oneStep();
+                next.add(program);
+                if (forked != null) next.add(forked);
+            }
+            programs = next;
+        }
+    }
+}
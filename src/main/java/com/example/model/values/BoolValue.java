@@ -1,7 +1,7 @@
 package com.example.model.values;
 
 import com.example.model.types.Type;
-import com.example.model.types.BoolType;
+import com.example.model.types.Types;
 
 public class BoolValue implements Value {
     private boolean value;
@@ -32,7 +32,7 @@ public class BoolValue implements Value {
 
     @Override
     public Type getType() {
-        return new BoolType();
+        return Types.BOOL;
     }
 
     @Override
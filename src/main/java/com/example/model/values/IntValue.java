@@ -1,7 +1,7 @@
 package com.example.model.values;
 
 import com.example.model.types.Type;
-import com.example.model.types.IntType;
+import com.example.model.types.Types;
 
 public class IntValue implements Value {
     private int value;
@@ -32,7 +32,7 @@ public class IntValue implements Value {
 
     @Override
     public Type getType() {
-        return new IntType();
+        return Types.INT;
     }
 
     @Override
@@ -2,15 +2,19 @@ package com.example.model.values;
 
 import com.example.model.types.RefType;
 import com.example.model.types.Type;
+import com.example.model.types.Types;
 
 
 public class RefValue implements Value {
     private int address;
     private Type locationType;
+    // canonical Ref(locationType), computed once instead of on every getType()
+    private RefType type;
 
     public RefValue(int address, Type locationType) {
         this.address = address;
-        this.locationType = locationType;
+        this.locationType = Types.intern(locationType);
+        this.type = Types.ref(this.locationType);
     }
 
     public int getAddress() { return address; }
@@ -22,7 +26,7 @@ public class RefValue implements Value {
     public boolean equals(Object other) {
         if (other instanceof RefValue) {
             RefValue otherRef = (RefValue) other;
-            return address == otherRef.getAddress() && locationType.equals(otherRef.getLocationType());
+            return address == otherRef.getAddress() && locationType == otherRef.getLocationType();
         }
         return false;
     }
@@ -34,7 +38,7 @@ public class RefValue implements Value {
 
     @Override
     public Type getType() {
-        return new RefType(locationType);
+        return type;
     }
 
     @Override
@@ -1,7 +1,7 @@
 package com.example.model.values;
 
 import com.example.model.types.Type;
-import com.example.model.types.StringType;
+import com.example.model.types.Types;
 
 public class StringValue implements Value {
     private String value;
@@ -30,9 +30,15 @@ public class StringValue implements Value {
         return false;
     }
 
+    // file tables are keyed by the file name, equal names have to find the same file
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
     @Override
     public Type getType() {
-        return new StringType();
+        return Types.STRING;
     }
 
     @Override
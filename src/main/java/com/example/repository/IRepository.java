@@ -8,4 +8,10 @@ public interface IRepository {
     MyIList<PrgState> getProgramList();
     void setProgramList(MyIList<PrgState> list);
     void logPrgStateExec(PrgState prg) throws MyException;
+    // logs the programs of one round, stopped between two steps
+    void logPrgStatesExec(MyIList<PrgState> prgList) throws MyException;
+    // returns once everything logged so far is written
+    void flushLog() throws MyException;
+    // writes the programs to a file, the programs must not be running
+    void suspend(String path) throws MyException;
 }
@@ -0,0 +1,129 @@
+package com.example.repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyFrame;
+import com.example.controller.Controller;
+import com.example.model.PrgState;
+import com.example.model.enums.ArithOperation;
+import com.example.model.enums.CompareOperation;
+import com.example.model.exceptions.MyException;
+import com.example.model.expressions.ArithExp;
+import com.example.model.expressions.CompareExp;
+import com.example.model.expressions.Exp;
+import com.example.model.expressions.ReadHeapExp;
+import com.example.model.expressions.ValueExp;
+import com.example.model.expressions.VarExp;
+import com.example.model.statements.AssignStmt;
+import com.example.model.statements.CompoundStmt;
+import com.example.model.statements.ForkStmt;
+import com.example.model.statements.IStmt;
+import com.example.model.statements.PrintStmt;
+import com.example.model.statements.VarDeclStmt;
+import com.example.model.statements.WhileStmt;
+import com.example.model.statements.heap.NewHeapStmt;
+import com.example.model.statements.heap.WriteHeapStmt;
+import com.example.model.types.IntType;
+import com.example.model.types.RefType;
+import com.example.model.values.IntValue;
+
+// Measures what logging every step costs the run. The program forks programs that each loop
+// iterations times over three new() and two wH(), all logged to a file under the lockstep
+// scheduler. Prints the median over the runs of the time the run took, of the CPU time of the
+// thread that ran it (where logging used to format and write every state) and the log size.
+// The console gets the log too: by default it is thrown away, with console the states go to
+// the standard output, which is what the command line does.
+//
+//   LogBench <iterations> <forks> [console] [runs]   7 runs by default
+public class LogBench {
+    public static void main(String[] args) throws IOException, MyException, ReflectiveOperationException {
+        if (args.length < 2) {
+            System.out.println("Usage: LogBench <iterations> <forks> [console] [runs]");
+            System.exit(2);
+        }
+        int iterations = Integer.parseInt(args[0]);
+        int forks = Integer.parseInt(args[1]);
+        boolean console = args.length > 2 && args[2].equals("console");
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 7;
+        LongSupplier cpuTime = cpuTime();
+        PrintStream stdout = System.out;
+        PrintStream report = console ? System.err : System.out;
+
+        Path log = Files.createTempFile("logbench", ".txt");
+        long[] wall = new long[runs];
+        long[] cpu = new long[runs];
+        long size = 0;
+        for (int run = 0; run < runs; run++) {
+            Files.deleteIfExists(log);
+            if (!console) System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            IStmt prg = program(iterations, forks);
+            FrameLayout layout = new FrameLayout();
+            prg.typeCheck(new MyFrame<>(layout));
+            Repository repo = new Repository(log.toString());
+            repo.addProgram(new PrgState(prg, layout));
+            Controller controller = new Controller(repo);
+            long cpuStart = cpuTime.getAsLong();
+            long start = System.nanoTime();
+            controller.executeAllSteps();
+            wall[run] = System.nanoTime() - start;
+            cpu[run] = cpuTime.getAsLong() - cpuStart;
+            System.setOut(stdout);
+            size = Files.size(log);
+        }
+        Files.deleteIfExists(log);
+        report.printf("iterations=%d forks=%d%s: %d ms, run thread cpu %d ms, log %d KB%n", iterations, forks,
+                console ? " console" : "", median(wall) / 1_000_000, median(cpu) / 1_000_000, size / 1024);
+        System.exit(0);
+    }
+
+    // the CPU time of the calling thread, looked up at run time so the module doesn't have to
+    // require java.management
+    private static LongSupplier cpuTime() throws ReflectiveOperationException {
+        Object threads = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+        Method counter = Class.forName("java.lang.management.ThreadMXBean").getMethod("getCurrentThreadCpuTime");
+        return () -> {
+            try {
+                return (long) counter.invoke(threads);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    // v = forks; while (v > 0) { fork(child); v = v - 1 }
+    private static IStmt program(int iterations, int forks) {
+        IStmt body = new CompoundStmt(new NewHeapStmt("a", var("i")),
+                new CompoundStmt(new NewHeapStmt("b", var("a")),
+                new CompoundStmt(new NewHeapStmt("a", constant(0)),
+                new CompoundStmt(new WriteHeapStmt("b", var("a")),
+                new CompoundStmt(new WriteHeapStmt("a", var("i")),
+                new AssignStmt("i", new ArithExp(new ReadHeapExp(new ReadHeapExp(var("b"))), constant(1), ArithOperation.SUB)))))));
+        IStmt child = new CompoundStmt(new VarDeclStmt("a", new RefType(new IntType())),
+                new CompoundStmt(new VarDeclStmt("b", new RefType(new RefType(new IntType()))),
+                new CompoundStmt(new VarDeclStmt("i", new IntType()),
+                new CompoundStmt(new AssignStmt("i", constant(iterations)),
+                new CompoundStmt(new WhileStmt(new CompareExp(var("i"), constant(0), CompareOperation.GREATER), body),
+                new PrintStmt(var("i")))))));
+        return new CompoundStmt(new VarDeclStmt("v", new IntType()),
+                new CompoundStmt(new AssignStmt("v", constant(forks)),
+                new WhileStmt(new CompareExp(var("v"), constant(0), CompareOperation.GREATER),
+                        new CompoundStmt(new ForkStmt(child), new AssignStmt("v", new ArithExp(var("v"), constant(1), ArithOperation.SUB))))));
+    }
+
+    private static Exp var(String name) { return new VarExp(name); }
+    private static Exp constant(int value) { return new ValueExp(new IntValue(value)); }
+}
@@ -0,0 +1,258 @@
+package com.example.repository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.example.model.PrgState;
+import com.example.model.enums.LogMode;
+import com.example.model.exceptions.MyException;
+import com.example.repository.trace.TraceEncoder;
+
+// Writes the execution log of the repositories logging to one file on a background thread.
+// The interpreter threads only queue copies of the program states; the writer formats them, in
+// full or as a trace of what changed since the round before, prints them to the console they
+// were logged to and appends them to the file, a whole batch with one write, through a channel
+// that stays open until the next flush. The queue is bounded, so a program that logs faster
+// than the disk can take waits for the writer. A file holds one kind of log: TraceReplay can't
+// read full states, so a file that has a full log doesn't take a trace and the other way round.
+public class LogWriter {
+    private final String logFilePath;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private FileChannel channel;
+    // encoders that wrote to the file since the last flush, only used by the writer thread
+    private final Set<TraceEncoder> traces = Collections.newSetFromMap(new IdentityHashMap<>());
+    // kind of log in the file, null until it is known
+    private LogMode fileMode;
+    // First write that failed since the last one was reported, or the first state that couldn't
+    // be formatted. It is reported once, to the next append or flush; the writes after it try
+    // the file again.
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    // rounds waiting to be written, each holds the copies of all the programs it logged
+    public static final int QUEUE_CAPACITY = 1024;
+    // a batch of big states is written in pieces of about this many chars
+    public static final int MAX_BATCH_CHARS = 1 << 20;
+
+    // one writer per log file, "" is the console only
+    private static final Map<String, LogWriter> writers = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(LogWriter::closeAll, "log-shutdown"));
+    }
+
+    // the program states of a round to log, or a flush request when states is null
+    private static final class Entry {
+        final List<PrgState> states;
+        final LogMode mode;
+        // what the repository logged before, for a trace
+        final TraceEncoder trace;
+        final PrintStream console;
+        final CountDownLatch flushed;
+
+        Entry(List<PrgState> states, LogMode mode, TraceEncoder trace, PrintStream console, CountDownLatch flushed) {
+            this.states = states;
+            this.mode = mode;
+            this.trace = trace;
+            this.console = console;
+            this.flushed = flushed;
+        }
+    }
+
+    private LogWriter(String logFilePath) {
+        this.logFilePath = logFilePath;
+        Thread.ofPlatform().daemon().name("log-writer").start(this::run);
+    }
+
+    public static LogWriter forFile(String logFilePath) {
+        return writers.computeIfAbsent(logFilePath, LogWriter::new);
+    }
+
+    // The states have to be copies nothing changes any more, they are formatted later. They
+    // share one heap, output and semaphore table, the trace writes those once per round. trace
+    // is the encoder of the repository, only used by the writer thread once the entry is queued.
+    public void append(List<PrgState> states, LogMode mode, TraceEncoder trace) throws MyException {
+        checkFailure();
+        checkMode(mode);
+        put(new Entry(states, mode, trace, System.out, null));
+    }
+
+    // waits until everything appended before is in the file and on the console
+    public void flush() throws MyException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        put(new Entry(null, null, null, null, flushed));
+        try {
+            flushed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MyException(e.getMessage());
+        }
+        // the file may be removed or replaced before it is written again
+        synchronized (this) { fileMode = null; }
+        checkFailure();
+    }
+
+    // A file keeps the kind of log it started with. Its first line tells, a trace starts with a keyframe.
+    private synchronized void checkMode(LogMode mode) throws MyException {
+        if (logFilePath.equals("")) return;
+        if (fileMode == null) {
+            fileMode = mode;
+            try (BufferedReader reader = Files.newBufferedReader(Path.of(logFilePath), StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                if (line != null) fileMode = line.startsWith("keyframe") ? LogMode.TRACE : LogMode.FULL;
+            } catch (IOException e) {
+                // not written yet
+            }
+        }
+        if (fileMode != mode) {
+            throw new MyException("Log file " + logFilePath + " holds a " + fileMode + " log, it can't take a " + mode + " log");
+        }
+    }
+
+    private void put(Entry entry) throws MyException {
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MyException(e.getMessage());
+        }
+    }
+
+    private void checkFailure() throws MyException {
+        Exception e = failure.getAndSet(null);
+        if (e instanceof IOException) throw new MyException(e.getMessage());
+        if (e != null) throw new MyException("Can't log the programs: " + e, e);
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                // the batch is lost, not the writer: the traces start over with a keyframe and
+                // whoever waits for a flush in it is let go
+                failure.compareAndSet(null, e);
+                close();
+                for (Entry entry : batch) {
+                    if (entry.trace != null) entry.trace.restart();
+                    if (entry.flushed != null) entry.flushed.countDown();
+                }
+                for (TraceEncoder trace : traces) { trace.restart(); }
+                traces.clear();
+            }
+            batch.clear();
+        }
+    }
+
+    // In full, the same text as logging each state with println and a FileWriter in append mode.
+    // A trace goes to the console as it goes to the file.
+    private void write(List<Entry> batch) {
+        StringBuilder file = new StringBuilder();
+        StringBuilder console = new StringBuilder();
+        PrintStream consoleStream = null;
+        for (Entry entry : batch) {
+            if (entry.states == null) {
+                print(consoleStream, console);
+                append(file);
+                // reopened by the next append, in case the file was removed after the run
+                close();
+                for (TraceEncoder trace : traces) { trace.restart(); }
+                traces.clear();
+                entry.flushed.countDown();
+                continue;
+            }
+            // a console swapped while the programs ran gets only what was logged to it
+            if (entry.console != consoleStream) {
+                print(consoleStream, console);
+                consoleStream = entry.console;
+            }
+            if (entry.mode == LogMode.TRACE) {
+                int start = console.length();
+                entry.trace.encode(entry.states, console);
+                traces.add(entry.trace);
+                if (!logFilePath.equals("")) file.append(console, start, console.length());
+            } else {
+                for (PrgState state : entry.states) {
+                    String text = state.toString();
+                    console.append(text).append(System.lineSeparator());
+                    if (!logFilePath.equals("")) file.append(text);
+                }
+            }
+            if (console.length() >= MAX_BATCH_CHARS) {
+                print(consoleStream, console);
+                append(file);
+            }
+        }
+        print(consoleStream, console);
+        append(file);
+    }
+
+    private void print(PrintStream stream, StringBuilder text) {
+        if (stream != null && text.length() > 0) {
+            stream.print(text);
+            stream.flush();
+        }
+        text.setLength(0);
+    }
+
+    private void append(StringBuilder text) {
+        if (text.length() == 0) return;
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(Path.of(logFilePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(text.toString());
+            while (bytes.hasRemaining()) { channel.write(bytes); }
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+            // the next batch opens the file again
+            close();
+        }
+        text.setLength(0);
+    }
+
+    private void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+        }
+        channel = null;
+    }
+
+    // what was logged before the JVM exits still gets written
+    private static void closeAll() {
+        for (LogWriter writer : writers.values()) {
+            try {
+                writer.flush();
+            } catch (MyException e) {
+                // nothing left to report it to
+            }
+        }
+    }
+}
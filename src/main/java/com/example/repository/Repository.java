@@ -1,18 +1,30 @@
 package com.example.repository;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.PrintWriter;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
+import com.example.collections.heap.MyIHeap;
 import com.example.collections.list.MyIList;
 import com.example.collections.list.MyList;
 import com.example.model.PrgState;
+import com.example.model.enums.LogMode;
 import com.example.model.exceptions.MyException;
+import com.example.model.snapshot.Snapshot;
+import com.example.model.states.countSemaphore.ISemaphoreTable;
+import com.example.model.values.Value;
+import com.example.repository.trace.TraceEncoder;
 
 public class Repository implements IRepository {
     private MyIList<PrgState> programList;
     private String logFilePath;
+    // started by the first state logged
+    private LogWriter log;
+    private LogMode logMode = LogMode.FULL;
+    // what this repository traced so far, created by the first state traced
+    private TraceEncoder trace;
 
     public Repository() {
         programList = new MyList<PrgState>();
@@ -40,17 +52,69 @@ public class Repository implements IRepository {
     @Override
     public void setProgramList(MyIList<PrgState> list) { programList = list; }
 
+    // The state is copied here and formatted and written by the log writer of the file, the
+    // stack and the symbol table are shared with the program until it changes them.
     @Override
     public void logPrgStateExec(PrgState prg) throws MyException {
-        System.out.println(prg.toString()); // log to console
-        if (logFilePath.equals("")) return;
+        MyIList<PrgState> prgList = new MyList<PrgState>();
+        prgList.add(prg);
+        logPrgStatesExec(prgList);
+    }
+
+    // out, heap and semaphores are shared by the programs, they are copied once for all of them
+    @Override
+    public void logPrgStatesExec(MyIList<PrgState> prgList) throws MyException {
+        if (prgList.isEmpty()) return;
+        PrgState first = prgList.get(0);
+        MyIList<Value> out = new MyList<Value>(new ArrayList<>(first.getOut()));
+        MyIHeap<Integer, Value> heap = first.getHeap().clone();
+        ISemaphoreTable semaphoreTable = first.getSemaphoreTable().copy(Map.of());
+        List<PrgState> copies = new ArrayList<>(prgList.size());
+        for (PrgState prg : prgList) {
+            PrgState copy = prg.copy(out, heap, semaphoreTable);
+            copy.setFileTable(prg.getFileTable().deepCopy());
+            copies.add(copy);
+        }
+        if (logMode == LogMode.TRACE && trace == null) trace = new TraceEncoder();
+        getLog().append(copies, logMode, trace);
+    }
+
+    @Override
+    public void flushLog() throws MyException {
+        if (log != null) log.flush();
+    }
+
+    public LogMode getLogMode() { return logMode; }
+    // TRACE logs only what changed at each step, TraceReplay rebuilds the states from it
+    // The file keeps the mode of the first log written to it, switching the mode of a repository
+    // that logs to a file already holding the other kind of log makes the next state logged fail.
+    public void setLogMode(LogMode mode) {
+        logMode = mode;
+        // the trace goes on from a keyframe after the rounds logged in full
+        if (trace != null) trace.restart();
+    }
+
+    private LogWriter getLog() {
+        if (log == null) log = LogWriter.forFile(logFilePath);
+        return log;
+    }
+
+    @Override
+    public void suspend(String path) throws MyException {
+        try {
+            Snapshot.save(Path.of(path), logFilePath, programList);
+        } catch (IOException e) {
+            throw new MyException("Can't suspend to " + path + ": " + e.getMessage());
+        }
+    }
 
+    // the programs suspended to the file, ready for a new controller, logging where they logged before
+    public static Repository resume(String path) throws MyException {
         try {
-            PrintWriter logFile = new PrintWriter(new BufferedWriter(new FileWriter(logFilePath, true)));
-            logFile.write(prg.toString());
-            logFile.close();
+            Snapshot snapshot = Snapshot.load(Path.of(path));
+            return new Repository(snapshot.getPrograms(), snapshot.getLogFilePath());
         } catch (IOException e) {
-            throw new MyException(e.getMessage());
+            throw new MyException("Can't resume from " + path + ": " + e.getMessage());
         }
     }
 
@@ -0,0 +1,176 @@
+package com.example.repository.trace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyFrame;
+import com.example.collections.list.MyIList;
+import com.example.controller.Controller;
+import com.example.controller.Programs;
+import com.example.model.PrgState;
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.enums.LogMode;
+import com.example.model.exceptions.MyException;
+import com.example.model.statements.IStmt;
+import com.example.repository.Repository;
+
+// Compares traces with the full log of the same runs. Every round is logged twice, in full to one
+// file and as a trace to another, so the replayed trace has to be the full log, with the heap
+// cells in address order. Every step is also rebuilt on its own from its keyframe, and the steps
+// together have to be the replayed trace.
+//
+//   TraceCheck [vm]         each example of Programs on its own
+//   TraceCheck runs <n>     n threads running all the examples at once, every run traces to
+//                           the same file and logs in full to the same other file
+public class TraceCheck {
+    private static final Pattern HEAP_CELL = Pattern.compile("(\\d+)=(\\([^)]*\\)|[^,}]*)");
+
+    // logs in full and as a trace, the two files get the rounds of all the runs in the same order
+    private static final class TeeRepository extends Repository {
+        private final Repository trace;
+        private final Object lock;
+
+        TeeRepository(String fullLog, String traceLog, Object lock) {
+            super(fullLog);
+            this.trace = new Repository(traceLog);
+            this.trace.setLogMode(LogMode.TRACE);
+            this.lock = lock;
+        }
+
+        @Override
+        public void logPrgStatesExec(MyIList<PrgState> prgList) throws MyException {
+            synchronized (lock) {
+                super.logPrgStatesExec(prgList);
+                trace.logPrgStatesExec(prgList);
+            }
+        }
+
+        @Override
+        public void flushLog() throws MyException {
+            super.flushLog();
+            trace.flushLog();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("tracecheck");
+        PrintStream console = System.out;
+        // what the programs print is not part of the comparison
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        boolean same;
+        try {
+            if (args.length > 1 && args[0].equals("runs")) {
+                same = checkRuns(dir, Integer.parseInt(args[1]), console);
+            } else {
+                same = checkExamples(dir, args.length > 0 && args[0].equals("vm"), console);
+            }
+        } finally {
+            System.setOut(console);
+        }
+        console.println(same ? "SAME" : "DIFF, the files are in " + dir);
+        System.exit(same ? 0 : 1);
+    }
+
+    private static boolean checkExamples(Path dir, boolean vm, PrintStream console) throws IOException {
+        boolean same = true;
+        int number = 0;
+        for (IStmt example : new Programs().getPrograms()) {
+            number++;
+            Path full = dir.resolve("full" + number + ".txt");
+            Path trace = dir.resolve("trace" + number + ".txt");
+            try {
+                run(example, vm, new TeeRepository(full.toString(), trace.toString(), new Object()));
+            } catch (MyException e) {
+                console.println("ex" + number + ": " + e.getMessage());
+                continue;
+            }
+            same &= compare("ex" + number, full, trace, console);
+        }
+        return same;
+    }
+
+    private static boolean checkRuns(Path dir, int threads, PrintStream console) throws Exception {
+        Path full = dir.resolve("full.txt");
+        Path trace = dir.resolve("trace.txt");
+        Object lock = new Object();
+        List<IStmt> examples = new ArrayList<>();
+        for (IStmt example : new Programs().getPrograms()) { examples.add(example); }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> runs = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            // each thread starts at another example, so different runs overlap
+            runs.add(pool.submit(() -> {
+                for (int i = 0; i < examples.size(); i++) {
+                    try {
+                        run(examples.get((first + i) % examples.size()), false, new TeeRepository(full.toString(), trace.toString(), lock));
+                    } catch (MyException e) {
+                        // an example that doesn't type check logs nothing
+                    }
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> run : runs) { run.get(); }
+        } finally {
+            pool.shutdown();
+        }
+        return compare(threads + " runs at once", full, trace, console);
+    }
+
+    private static void run(IStmt example, boolean vm, Repository repo) throws MyException {
+        IStmt prg = example.deepCopy();
+        FrameLayout layout = new FrameLayout();
+        prg.typeCheck(new MyFrame<>(layout));
+        repo.addProgram(vm ? new PrgState(BytecodeCompiler.compile(prg)) : new PrgState(prg, layout));
+        new Controller(repo).executeAllSteps();
+    }
+
+    private static boolean compare(String name, Path full, Path trace, PrintStream console) throws IOException {
+        ByteArrayOutputStream replayed = new ByteArrayOutputStream();
+        TraceReplay.replayAll(trace, new PrintStream(replayed, true, StandardCharsets.UTF_8));
+        String replayedText = replayed.toString(StandardCharsets.UTF_8);
+        String fullText = sortHeaps(Files.readString(full));
+
+        int steps = 0;
+        for (String line : Files.readAllLines(trace)) {
+            if (line.startsWith("keyframe ") || line.startsWith("step ")) steps++;
+        }
+        StringBuilder each = new StringBuilder();
+        for (int step = 0; step < steps; step++) { each.append(TraceReplay.replay(trace, step)); }
+
+        boolean replayOk = replayedText.equals(fullText);
+        boolean stepsOk = each.toString().equals(replayedText);
+        console.printf("%s: replay %s, steps %s, %d steps, full log %d KB, trace %d KB%n", name,
+                replayOk ? "same" : "DIFF", stepsOk ? "same" : "DIFF", steps, Files.size(full) / 1024, Files.size(trace) / 1024);
+        return replayOk && stepsOk;
+    }
+
+    // the replay prints the heap cells in address order
+    private static String sortHeaps(String log) {
+        String[] lines = log.split("\n", -1);
+        for (int i = 1; i < lines.length; i++) {
+            if (!lines[i - 1].equals("HeapTable:")) continue;
+            TreeMap<Integer, String> cells = new TreeMap<>();
+            Matcher cell = HEAP_CELL.matcher(lines[i]);
+            while (cell.find()) { cells.put(Integer.parseInt(cell.group(1)), cell.group(2)); }
+            lines[i] = cells.toString();
+        }
+        return String.join("\n", lines);
+    }
+}
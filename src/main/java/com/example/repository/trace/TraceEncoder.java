@@ -0,0 +1,246 @@
+package com.example.repository.trace;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.example.collections.dictionary.MyIDictionary;
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyIFrame;
+import com.example.collections.list.MyIList;
+import com.example.model.PrgState;
+import com.example.model.statements.IStmt;
+import com.example.model.values.Value;
+
+// Turns the rounds a repository logs into a trace: a record holds only what changed since the
+// record before it, and every KEYFRAME_INTERVAL records a keyframe holds the whole state of the
+// programs, so TraceReplay rebuilds a step from the last keyframe before it. The programs are
+// compared with what the previous record saw of them, so they have to be copies nothing changes.
+// Every repository logging a trace has its own encoder, which numbers its records as a stream of
+// its own: repositories tracing to the same file interleave their records, and each record only
+// holds what changed since the record before it of the same stream.
+//
+// A record is a line "keyframe <stream>" or "step <stream>" followed by one change per line:
+//   heap <address> <value>, free <address>   cells created or written, and cells collected
+//   out <value>                              a value printed
+//   sems <table>                             the semaphore table, when it changed
+//   prg <id>                                 the program the next lines are about, logged by the record
+//   keep <id>                                same in a keyframe, for a program the record doesn't log
+//   stmt <n> <statement>                     defines statement n, numbered from 0 at each keyframe
+//   orig <n>                                 the original program
+//   pop <count>, push <n>                    statements taken off the stack, then the ones put on it
+//   pc <instruction>                         where a bytecode program is
+//   sym <slot> <name> <value>, unsym <slot>  variables of the symbol table
+//   syms <table>                             a symbol table that is not a frame, whole
+//   files <table>                            the file table, when it changed
+//   end                                      the program is done, no later record has it
+// Statements and values are written on one line, with backslashes and line breaks escaped.
+public class TraceEncoder {
+    public static final int KEYFRAME_INTERVAL = 500;
+
+    private static final AtomicInteger streams = new AtomicInteger();
+
+    private final int stream = streams.getAndIncrement();
+
+    // what the last record saw of the programs that are not done
+    private final Map<Integer, ProgramTrace> programs = new LinkedHashMap<>();
+    // statements defined since the last keyframe, with their number
+    private final Map<IStmt, Integer> statements = new IdentityHashMap<>();
+    private Map<Integer, Value> heap = Map.of();
+    private int outSize;
+    private String semaphores;
+    private int sinceKeyframe;
+    // set by the repository when its mode changes, while the writer thread may be encoding
+    private volatile boolean keyframeDue = true;
+
+    // what a record saw of one program
+    private static final class ProgramTrace {
+        static final ProgramTrace EMPTY = new ProgramTrace();
+
+        IStmt original;
+        List<IStmt> stack = List.of();
+        // slots of a frame, null for a symbol table that is not one
+        Value[] slots = new Value[0];
+        FrameLayout layout;
+        String symTable;
+        String pc;
+        String files;
+    }
+
+    public int getStream() { return stream; }
+
+    // the next record is a keyframe, the trace may go on in a file that doesn't have the records before
+    public void restart() {
+        keyframeDue = true;
+    }
+
+    // appends the record of one round, prgList holds copies sharing one heap, output and semaphore table
+    public void encode(List<PrgState> prgList, StringBuilder text) {
+        PrgState first = prgList.get(0);
+        boolean keyframe = keyframeDue || sinceKeyframe >= KEYFRAME_INTERVAL || first.getOut().size() < outSize;
+        if (keyframe) {
+            statements.clear();
+            heap = Map.of();
+            outSize = 0;
+            semaphores = null;
+            sinceKeyframe = 0;
+            keyframeDue = false;
+            text.append("keyframe ").append(stream).append('\n');
+        } else {
+            text.append("step ").append(stream).append('\n');
+        }
+        sinceKeyframe++;
+
+        encodeHeap(first.getHeap().getContent(), text);
+        MyIList<Value> out = first.getOut();
+        for (int i = outSize; i < out.size(); i++) { line(text, "out", out.get(i).toString()); }
+        outSize = out.size();
+        String sems = first.getSemaphoreTable().toString();
+        if (!sems.equals(semaphores)) line(text, "sems", sems);
+        semaphores = sems;
+
+        Set<Integer> logged = new HashSet<>();
+        for (PrgState prg : prgList) {
+            logged.add(prg.getId());
+            ProgramTrace previous = keyframe ? null : programs.get(prg.getId());
+            ProgramTrace current = trace(prg);
+            text.append("prg ").append(prg.getId()).append('\n');
+            encodeProgram(previous == null ? ProgramTrace.EMPTY : previous, current, text);
+            if (prg.isNotCompleted()) {
+                programs.put(prg.getId(), current);
+            } else {
+                text.append("end\n");
+                programs.remove(prg.getId());
+            }
+        }
+        // a keyframe holds the programs that log one at a time too
+        if (keyframe) {
+            for (Map.Entry<Integer, ProgramTrace> prg : programs.entrySet()) {
+                if (logged.contains(prg.getKey())) continue;
+                text.append("keep ").append(prg.getKey()).append('\n');
+                encodeProgram(ProgramTrace.EMPTY, prg.getValue(), text);
+            }
+        }
+    }
+
+    // the cells of heap belong to a copy, they are kept to compare the next round with
+    private void encodeHeap(Map<Integer, Value> cells, StringBuilder text) {
+        for (Map.Entry<Integer, Value> cell : cells.entrySet()) {
+            if (!cell.getValue().equals(heap.get(cell.getKey()))) {
+                text.append("heap ").append(cell.getKey()).append(' ');
+                escape(cell.getValue().toString(), text);
+            }
+        }
+        for (Integer address : heap.keySet()) {
+            if (!cells.containsKey(address)) text.append("free ").append(address).append('\n');
+        }
+        heap = cells;
+    }
+
+    private ProgramTrace trace(PrgState prg) {
+        ProgramTrace trace = new ProgramTrace();
+        trace.original = prg.getOriginalProgram();
+        if (prg.getCode() != null) {
+            trace.pc = prg.getInstructionText();
+        } else {
+            trace.stack = prg.getExeStack().stream().toList();
+        }
+        MyIDictionary<String, Value> symTable = prg.getSymTable();
+        if (symTable instanceof MyIFrame<Value> frame) {
+            trace.layout = frame.getLayout();
+            trace.slots = new Value[trace.layout.size()];
+            for (int i = 0; i < trace.slots.length; i++) { trace.slots[i] = frame.getSlot(i); }
+        } else {
+            trace.slots = null;
+            trace.symTable = symTable.toString();
+        }
+        trace.files = prg.getFileTable().toString();
+        return trace;
+    }
+
+    private void encodeProgram(ProgramTrace previous, ProgramTrace current, StringBuilder text) {
+        if (current.original != previous.original) {
+            int n = statement(current.original, text);
+            text.append("orig ").append(n).append('\n');
+        }
+
+        // the stacks are compared from the bottom, what is left of the old one stays
+        int common = 0;
+        int length = Math.min(previous.stack.size(), current.stack.size());
+        while (common < length && previous.stack.get(common) == current.stack.get(common)) { common++; }
+        if (previous.stack.size() > common) text.append("pop ").append(previous.stack.size() - common).append('\n');
+        for (int i = common; i < current.stack.size(); i++) {
+            int n = statement(current.stack.get(i), text);
+            text.append("push ").append(n).append('\n');
+        }
+        if (!Objects.equals(current.pc, previous.pc)) line(text, "pc", current.pc);
+
+        if (current.slots == null) {
+            if (!current.symTable.equals(previous.symTable)) line(text, "syms", current.symTable);
+        } else {
+            Value[] before = previous.slots == null ? new Value[0] : previous.slots;
+            for (int i = 0; i < Math.max(before.length, current.slots.length); i++) {
+                Value old = i < before.length ? before[i] : null;
+                Value value = i < current.slots.length ? current.slots[i] : null;
+                if (Objects.equals(old, value)) continue;
+                if (value == null) {
+                    text.append("unsym ").append(i).append('\n');
+                } else {
+                    text.append("sym ").append(i).append(' ').append(current.layout.nameOf(i)).append(' ');
+                    escape(value.toString(), text);
+                }
+            }
+        }
+        if (!current.files.equals(previous.files)) line(text, "files", current.files);
+    }
+
+    // number of the statement, defined first if this is the first time it is used since the keyframe
+    private int statement(IStmt stmt, StringBuilder text) {
+        Integer n = statements.get(stmt);
+        if (n != null) return n;
+        n = statements.size();
+        statements.put(stmt, n);
+        text.append("stmt ").append(n).append(' ');
+        escape(stmt.toString(), text);
+        return n;
+    }
+
+    private static void line(StringBuilder text, String op, String value) {
+        text.append(op).append(' ');
+        escape(value, text);
+    }
+
+    // value on one line, ended by a line break
+    static void escape(String value, StringBuilder text) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': text.append("\\\\"); break;
+                case '\n': text.append("\\n"); break;
+                case '\r': text.append("\\r"); break;
+                default: text.append(c);
+            }
+        }
+        text.append('\n');
+    }
+
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) return value;
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
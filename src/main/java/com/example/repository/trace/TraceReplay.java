@@ -0,0 +1,282 @@
+package com.example.repository.trace;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.example.model.PrgState;
+
+// Rebuilds the program states of a trace written by TraceEncoder, as the full log would have
+// shown them. Steps are the records of the file counted from 0. Each repository traced to the
+// file writes a stream of its own, and a stream is replayed on its own. To rebuild a step, the
+// file is scanned up to it for the last keyframe of its stream, without decoding anything, and
+// only the records of that stream from the keyframe on are applied. Heap cells are printed in
+// the order of their addresses, the heap of the run may have listed them in another order.
+//
+//   TraceReplay <trace>          prints every step
+//   TraceReplay <trace> <step>   prints the programs logged by the step
+public class TraceReplay {
+    private static final byte[] KEYFRAME = "keyframe".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STEP = "step".getBytes(StandardCharsets.US_ASCII);
+    // "keyframe " and the stream number
+    private static final int HEADER_LENGTH = 20;
+
+    private final Map<Integer, ProgramView> programs = new HashMap<>();
+    private final List<String> statements = new ArrayList<>();
+    private final TreeMap<Integer, String> heap = new TreeMap<>();
+    private final List<String> out = new ArrayList<>();
+    private String semaphores = "{}";
+    // programs logged by the current record, in order, and the ones it ends
+    private final List<ProgramView> logged = new ArrayList<>();
+    private final List<Integer> ended = new ArrayList<>();
+    private ProgramView current;
+
+    // what the trace has told so far of one program
+    private static final class ProgramView {
+        final int id;
+        String original = "";
+        final List<String> stack = new ArrayList<>();
+        String pc;
+        // "name=value" by slot, unless the symbol table is written whole
+        final TreeMap<Integer, String> slots = new TreeMap<>();
+        String symTable;
+        String files = "{}";
+
+        ProgramView(int id) { this.id = id; }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: TraceReplay <trace> [step]");
+            System.exit(2);
+        }
+        try {
+            Path trace = Path.of(args[0]);
+            if (args.length == 1) {
+                replayAll(trace, System.out);
+            } else {
+                System.out.print(replay(trace, Integer.parseInt(args[1])));
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // the programs logged by the step, in the text of the full log
+    public static String replay(Path trace, int step) throws IOException {
+        try (FileChannel channel = FileChannel.open(trace, StandardOpenOption.READ)) {
+            long[] keyframe = findKeyframe(channel, step);
+            long stream = keyframe[2];
+            channel.position(keyframe[0]);
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            TraceReplay replay = new TraceReplay();
+            long record = keyframe[1] - 1;
+            // records of the other streams in between are skipped
+            boolean ours = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int header = streamOf(line);
+                if (header >= 0) {
+                    if (++record > step) break;
+                    ours = header == stream;
+                }
+                if (ours) replay.apply(line);
+            }
+            return replay.render();
+        }
+    }
+
+    // every step of the trace, which is the full log of the run, or of the runs traced to the file
+    public static void replayAll(Path trace, PrintStream output) throws IOException {
+        try (FileChannel channel = FileChannel.open(trace, StandardOpenOption.READ)) {
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            Map<Integer, TraceReplay> streams = new HashMap<>();
+            TraceReplay replay = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int stream = streamOf(line);
+                if (stream >= 0) {
+                    if (replay != null) output.print(replay.render());
+                    replay = streams.computeIfAbsent(stream, s -> new TraceReplay());
+                } else if (replay == null) {
+                    throw new IOException("The trace doesn't start with a record: " + line);
+                }
+                replay.apply(line);
+            }
+            if (replay != null) output.print(replay.render());
+        }
+    }
+
+    // offset and number of the last keyframe at or before the step of the stream the step belongs to, and the stream
+    private static long[] findKeyframe(FileChannel channel, int step) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        // the start of the current line, headers are short and longer lines are only counted
+        byte[] line = new byte[HEADER_LENGTH];
+        int lineLength = 0;
+        long offset = 0;
+        long lineStart = 0;
+        long record = -1;
+        // last keyframe of each stream: offset and record
+        Map<Integer, long[]> keyframes = new HashMap<>();
+        while (channel.read(buffer) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                offset++;
+                if (b != '\n') {
+                    if (lineLength < line.length) line[lineLength] = b;
+                    lineLength++;
+                    continue;
+                }
+                int keyframe = streamOf(line, lineLength, KEYFRAME);
+                int stream = keyframe >= 0 ? keyframe : streamOf(line, lineLength, STEP);
+                if (stream >= 0) {
+                    record++;
+                    if (keyframe >= 0) keyframes.put(stream, new long[] { lineStart, record });
+                    if (record == step) {
+                        long[] found = keyframes.get(stream);
+                        if (found == null) throw new IOException("No keyframe before step " + step + " in the trace");
+                        return new long[] { found[0], found[1], stream };
+                    }
+                }
+                lineLength = 0;
+                lineStart = offset;
+            }
+            buffer.clear();
+        }
+        throw new IOException("Step " + step + " is not in the trace, it has " + (record + 1) + " steps");
+    }
+
+    // stream of a header line starting with word, -1 if the line is not one
+    private static int streamOf(byte[] line, int length, byte[] word) {
+        if (length <= word.length + 1 || length > line.length || line[word.length] != ' ') return -1;
+        for (int i = 0; i < word.length; i++) {
+            if (line[i] != word[i]) return -1;
+        }
+        int stream = 0;
+        for (int i = word.length + 1; i < length; i++) {
+            if (line[i] < '0' || line[i] > '9') return -1;
+            stream = stream * 10 + (line[i] - '0');
+        }
+        return stream;
+    }
+
+    private static int streamOf(String line) {
+        int space = line.indexOf(' ');
+        if (space < 0 || line.length() > HEADER_LENGTH) return -1;
+        String word = line.substring(0, space);
+        if (!word.equals("keyframe") && !word.equals("step")) return -1;
+        int stream = 0;
+        for (int i = space + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            stream = stream * 10 + (c - '0');
+        }
+        return space + 1 < line.length() ? stream : -1;
+    }
+
+    private void apply(String line) throws IOException {
+        int space = line.indexOf(' ');
+        String op = space < 0 ? line : line.substring(0, space);
+        String arg = space < 0 ? "" : line.substring(space + 1);
+        try {
+            switch (op) {
+                case "keyframe":
+                    startRecord();
+                    programs.clear();
+                    statements.clear();
+                    heap.clear();
+                    out.clear();
+                    break;
+                case "step": startRecord(); break;
+                case "heap": heap.put(Integer.parseInt(first(arg)), TraceEncoder.unescape(rest(arg))); break;
+                case "free": heap.remove(Integer.parseInt(arg)); break;
+                case "out": out.add(TraceEncoder.unescape(arg)); break;
+                case "sems": semaphores = TraceEncoder.unescape(arg); break;
+                case "prg":
+                    current = programs.computeIfAbsent(Integer.parseInt(arg), ProgramView::new);
+                    logged.add(current);
+                    break;
+                case "keep": current = programs.computeIfAbsent(Integer.parseInt(arg), ProgramView::new); break;
+                case "stmt":
+                    if (Integer.parseInt(first(arg)) != statements.size()) throw new IOException("Statement out of order in the trace: " + line);
+                    statements.add(TraceEncoder.unescape(rest(arg)));
+                    break;
+                case "orig": program().original = statement(arg); break;
+                case "pop": {
+                    List<String> stack = program().stack;
+                    stack.subList(stack.size() - Integer.parseInt(arg), stack.size()).clear();
+                    break;
+                }
+                case "push": program().stack.add(statement(arg)); break;
+                case "pc": program().pc = TraceEncoder.unescape(arg); break;
+                case "sym": {
+                    String var = rest(arg);
+                    program().slots.put(Integer.parseInt(first(arg)), first(var) + "=" + TraceEncoder.unescape(rest(var)));
+                    break;
+                }
+                case "unsym": program().slots.remove(Integer.parseInt(arg)); break;
+                case "syms": program().symTable = TraceEncoder.unescape(arg); break;
+                case "files": program().files = TraceEncoder.unescape(arg); break;
+                case "end": ended.add(program().id); break;
+                default: throw new IOException("Unknown line in the trace: " + line);
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IOException("Malformed line in the trace: " + line);
+        }
+    }
+
+    // the programs a record ended are gone once it is printed
+    private void startRecord() {
+        for (int id : ended) { programs.remove(id); }
+        ended.clear();
+        logged.clear();
+        current = null;
+    }
+
+    private ProgramView program() throws IOException {
+        if (current == null) throw new IOException("Program change outside of a program in the trace");
+        return current;
+    }
+
+    private String statement(String n) throws IOException {
+        int index = Integer.parseInt(n);
+        if (index >= statements.size()) throw new IOException("Statement " + index + " is not defined in the trace");
+        return statements.get(index);
+    }
+
+    private static String first(String arg) {
+        return arg.substring(0, arg.indexOf(' '));
+    }
+
+    private static String rest(String arg) {
+        return arg.substring(arg.indexOf(' ') + 1);
+    }
+
+    private String render() {
+        StringBuilder text = new StringBuilder();
+        for (ProgramView prg : logged) {
+            StringBuilder stack = new StringBuilder();
+            for (int i = prg.stack.size() - 1; i >= 0; i--) {
+                stack.append(prg.stack.get(i));
+                if (i > 0) stack.append('\n');
+            }
+            String symTable = prg.symTable != null ? prg.symTable : "{" + String.join(", ", prg.slots.values()) + "}";
+            text.append(PrgState.format(prg.id, prg.pc != null ? prg.pc : stack.toString(), symTable, prg.files,
+                                        heap.toString(), out.toString(), semaphores, prg.original));
+        }
+        return text.toString();
+    }
+}
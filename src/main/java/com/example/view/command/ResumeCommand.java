@@ -0,0 +1,25 @@
+package com.example.view.command;
+
+import com.example.model.exceptions.MyException;
+import com.example.repository.Repository;
+import com.example.controller.Controller;
+
+// runs to the end a program that was suspended to a file
+public class ResumeCommand extends Command {
+    private String snapshotPath;
+
+    public ResumeCommand(String key, String description, String snapshotPath) {
+        super(key, description);
+        this.snapshotPath = snapshotPath;
+    }
+
+    @Override
+    public void execute() {
+        try {
+            Controller ctrl = new Controller(Repository.resume(snapshotPath));
+            ctrl.executeAllSteps();
+        } catch (MyException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
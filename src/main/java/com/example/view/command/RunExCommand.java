@@ -1,7 +1,12 @@
 package com.example.view.command;
 
-import com.example.collections.dictionary.MyDictionary;
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyFrame;
 import com.example.model.PrgState;
+import com.example.model.bytecode.BytecodeCompiler;
+import com.example.model.enums.ExecutionMode;
+import com.example.model.enums.LogMode;
+import com.example.model.enums.SchedulerMode;
 import com.example.model.exceptions.MyException;
 import com.example.model.statements.IStmt;
 import com.example.repository.Repository;
@@ -10,26 +15,49 @@ import com.example.controller.Controller;
 public class RunExCommand extends Command {
     private IStmt prg;
     private String logFilePath;
+    private ExecutionMode mode;
+    private SchedulerMode schedulerMode;
+    private LogMode logMode;
 
     public RunExCommand(String key, String description, IStmt prg) {
         this(key, description, prg, "");
     }
 
     public RunExCommand(String key, String description, IStmt prg, String logFilePath) {
+        this(key, description, prg, logFilePath, ExecutionMode.INTERPRETER);
+    }
+
+    public RunExCommand(String key, String description, IStmt prg, String logFilePath, ExecutionMode mode) {
+        this(key, description, prg, logFilePath, mode, SchedulerMode.LOCKSTEP);
+    }
+
+    public RunExCommand(String key, String description, IStmt prg, String logFilePath, ExecutionMode mode, SchedulerMode schedulerMode) {
+        this(key, description, prg, logFilePath, mode, schedulerMode, LogMode.FULL);
+    }
+
+    public RunExCommand(String key, String description, IStmt prg, String logFilePath, ExecutionMode mode, SchedulerMode schedulerMode, LogMode logMode) {
         super(key, description);
         this.prg = prg;
         this.logFilePath = logFilePath;
+        this.mode = mode;
+        this.schedulerMode = schedulerMode;
+        this.logMode = logMode;
     }
 
     @Override
     public void execute() {
         try {
-            prg.typeCheck(new MyDictionary<>());
-            PrgState prgState = new PrgState(prg);
+            // type checking binds the variables of the tree to the layout of this run
+            IStmt prg = this.prg.deepCopy();
+            FrameLayout layout = new FrameLayout();
+            prg.typeCheck(new MyFrame<>(layout));
+            PrgState prgState = mode == ExecutionMode.BYTECODE ? new PrgState(BytecodeCompiler.compile(prg)) : new PrgState(prg, layout);
             Repository repo = new Repository(logFilePath);
+            repo.setLogMode(logMode);
             repo.addProgram(prgState);
             Controller ctrl = new Controller(repo);
-        ctrl.executeAllSteps();
+            ctrl.setSchedulerMode(schedulerMode);
+            ctrl.executeAllSteps();
         } catch (MyException e) {
             System.out.println(e.getMessage());
         } 
@@ -6,13 +6,15 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
 import javafx.geometry.Insets;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 
-import com.example.collections.dictionary.MyDictionary;
-import com.example.collections.heap.MyIHeap;
+import com.example.collections.frame.FrameLayout;
+import com.example.collections.frame.MyFrame;
 import com.example.controller.Controller;
+import com.example.controller.checkpoint.CheckpointManager;
 import com.example.repository.Repository;
 import com.example.model.PrgState;
 import com.example.controller.Programs;
@@ -21,6 +23,7 @@ import com.example.model.values.Value;
 import com.example.model.exceptions.MyException;
 import com.example.collections.list.MyIList;
 
+import java.io.File;
 import java.util.stream.Collectors;
 
 public class MainProgramView {
@@ -36,6 +39,8 @@ public class MainProgramView {
     private TableView<SymTableEntry> symTable;
     private ListView<String> exeStackList;
     private TextField prgStatesCount;
+    private TextField stepField;
+    private Label checkpointInfo;
     private TableView<SemaphoreEntry> semaphoreTable; // Add Semaphore Table
 
     public MainProgramView() {
@@ -43,80 +48,121 @@ public class MainProgramView {
     }
 
     public void showMainProgramWindow(String selectedProgram) {
-        Stage mainStage = new Stage();
-        BorderPane mainRoot = new BorderPane();
-
-        IStmt prg = programs.getProgramFromString(selectedProgram);
+        // type checking binds the variables of the tree to the layout of this run
+        IStmt prg = programs.getProgramFromString(selectedProgram).deepCopy();
+        Repository repo;
         try {
-            prg.typeCheck(new MyDictionary<>());
-            prgState = new PrgState(prg);
-            Repository repo = new Repository(programs.getProgramLogFile(selectedProgram));
+            FrameLayout layout = new FrameLayout();
+            prg.typeCheck(new MyFrame<>(layout));
+            prgState = new PrgState(prg, layout);
+            repo = new Repository(programs.getProgramLogFile(selectedProgram));
             repo.addProgram(prgState);
-            controller = new Controller(repo);
-            controller.executor = java.util.concurrent.Executors.newFixedThreadPool(2);
-
-            VBox leftPanel = new VBox(10);
-            leftPanel.setPadding(new Insets(10));
-            leftPanel.getChildren().addAll(new Label("Execution Stack"), exeStackList,
-                    new Label("Symbol Table"), symTable);
-
-            VBox centerPanel = new VBox(10);
-            centerPanel.setPadding(new Insets(10));
-            centerPanel.getChildren().addAll(new Label("Heap Table"), heapTable,
-                    new Label("Output"), outputList,
-                    new Label("Program States"), prgStateList);
-
-            VBox rightPanel = new VBox(10);
-            rightPanel.setPadding(new Insets(10));
-            rightPanel.getChildren().addAll(new Label("File Table"), fileTableList,
-                    new Label("Semaphore Table"), semaphoreTable);
-
-            HBox bottomPanel = new HBox();
-            bottomPanel.setPadding(new Insets(10));
-            bottomPanel.getChildren().addAll(new Label("Program States: "), prgStatesCount,
-                    new Button("Run One Step"), new Button("Run All Steps"));
-
-            ((Button) bottomPanel.getChildren().get(2)).setOnAction(e -> runOneStep());
-            ((Button) bottomPanel.getChildren().get(3)).setOnAction(e -> {
-                while (controller.getRepo().getProgramList().size() > 0) {
-                    runOneStep();
-                }
-            });
-
-            mainRoot.setLeft(leftPanel);
-            mainRoot.setCenter(centerPanel);
-            mainRoot.setRight(rightPanel);
-            mainRoot.setBottom(bottomPanel);
-
-            Scene mainScene = new Scene(mainRoot, 1200, 800);
-            mainStage.setTitle("Program Execution");
-            mainStage.setScene(mainScene);
-            mainStage.show();
-
-            mainStage.setOnCloseRequest(e -> {
-                if (controller != null && controller.executor != null) {
-                    controller.executor.shutdownNow();
-                }
-                System.exit(0);
-            });
-
-            // Only run first step if initialization was successful
-            updateUIComponents(); // Show initial state
         } catch (MyException e) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Type Check Error");
             alert.setContentText(e.getMessage());
             alert.showAndWait();
-            mainStage.close();
-            // Return to program selection and close current window
-            ProgramSelectionView selectionView = new ProgramSelectionView();
-            selectionView.setPrograms(programs.getProgramStrings());
-            selectionView.setOnProgramSelect(this::showMainProgramWindow);
-            selectionView.show();
+            // Return to program selection
+            showProgramSelection();
+            return;
+        }
+        showRun(repo);
+    }
+
+    // Opens a run saved with the Suspend button at the step it was suspended
+    public void resumeMainProgramWindow(String snapshotPath) {
+        Repository repo;
+        try {
+            repo = Repository.resume(snapshotPath);
+        } catch (MyException e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Resume Error");
+            alert.setContentText(e.getMessage());
+            alert.showAndWait();
+            showProgramSelection();
             return;
         }
+        if (!repo.getProgramList().isEmpty()) prgState = repo.getProgram(0);
+        showRun(repo);
+    }
+
+    private void showRun(Repository repo) {
+        Stage mainStage = new Stage();
+        BorderPane mainRoot = new BorderPane();
 
+        controller = new Controller(repo);
+        controller.startExecutor(2);
+        controller.enableCheckpoints(CheckpointManager.DEFAULT_INTERVAL, CheckpointManager.DEFAULT_MEMORY_BUDGET);
+
+        VBox leftPanel = new VBox(10);
+        leftPanel.setPadding(new Insets(10));
+        leftPanel.getChildren().addAll(new Label("Execution Stack"), exeStackList,
+                new Label("Symbol Table"), symTable);
+
+        VBox centerPanel = new VBox(10);
+        centerPanel.setPadding(new Insets(10));
+        centerPanel.getChildren().addAll(new Label("Heap Table"), heapTable,
+                new Label("Output"), outputList,
+                new Label("Program States"), prgStateList);
+
+        VBox rightPanel = new VBox(10);
+        rightPanel.setPadding(new Insets(10));
+        rightPanel.getChildren().addAll(new Label("File Table"), fileTableList,
+                new Label("Semaphore Table"), semaphoreTable);
+
+        HBox bottomPanel = new HBox();
+        bottomPanel.setPadding(new Insets(10));
+        bottomPanel.getChildren().addAll(new Label("Program States: "), prgStatesCount,
+                new Button("Run One Step"), new Button("Run All Steps"),
+                new Button("Step Back"), new Label(" Step: "), stepField, new Button("Jump To Step"), checkpointInfo,
+                new Button("Suspend"));
+
+        ((Button) bottomPanel.getChildren().get(2)).setOnAction(e -> runOneStep());
+        ((Button) bottomPanel.getChildren().get(3)).setOnAction(e -> {
+            // stops at a round where every program is blocked, none of them can wake the others
+            while (controller.getRepo().getProgramList().size() > 0) {
+                if (!runOneStep()) break;
+            }
+        });
+        ((Button) bottomPanel.getChildren().get(4)).setOnAction(e -> travel(controller.getCheckpoints().getStep() - 1));
+        ((Button) bottomPanel.getChildren().get(7)).setOnAction(e -> {
+            try {
+                travel(Integer.parseInt(stepField.getText().trim()));
+            } catch (NumberFormatException ex) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Error");
+                alert.setContentText("Step must be a number");
+                alert.showAndWait();
+            }
+        });
+        ((Button) bottomPanel.getChildren().get(9)).setOnAction(e -> suspend(mainStage));
+
+        mainRoot.setLeft(leftPanel);
+        mainRoot.setCenter(centerPanel);
+        mainRoot.setRight(rightPanel);
+        mainRoot.setBottom(bottomPanel);
+
+        Scene mainScene = new Scene(mainRoot, 1200, 800);
+        mainStage.setTitle("Program Execution");
+        mainStage.setScene(mainScene);
         mainStage.show();
+
+        mainStage.setOnCloseRequest(e -> {
+            if (controller != null) {
+                controller.shutdown();
+            }
+            System.exit(0);
+        });
+
+        updateUIComponents(); // Show initial state
+    }
+
+    private void showProgramSelection() {
+        ProgramSelectionView selectionView = new ProgramSelectionView();
+        selectionView.setPrograms(programs.getProgramStrings());
+        selectionView.setOnProgramSelect(this::showMainProgramWindow);
+        selectionView.setOnResume(this::resumeMainProgramWindow);
+        selectionView.show();
     }
 
     @SuppressWarnings("unchecked")
@@ -124,6 +170,9 @@ public class MainProgramView {
         // Initialize all UI components
         prgStatesCount = new TextField();
         prgStatesCount.setEditable(false);
+        stepField = new TextField("0");
+        stepField.setPrefColumnCount(5);
+        checkpointInfo = new Label();
 
         heapTable = new TableView<>();
         TableColumn<HeapEntry, Integer> addressCol = new TableColumn<>("Address");
@@ -179,33 +228,42 @@ public class MainProgramView {
         });
     }
 
-    private void runOneStep() {
+    // returns false if no program could run
+    private boolean runOneStep() {
         if (controller.getRepo().getProgramList().size() == 0) {
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Program completed");
             alert.setContentText("Program execution finished");
             alert.showAndWait();
-            controller.executor.shutdownNow();
+            controller.shutdown();
             // Return to program selection and close current window
-            ProgramSelectionView selectionView = new ProgramSelectionView();
-            selectionView.setPrograms(programs.getProgramStrings());
-            selectionView.setOnProgramSelect(this::showMainProgramWindow);
-            selectionView.show();
-            return;
+            showProgramSelection();
+            return false;
         }
 
         try {
+            // garbage collector, then one step of every program
+            boolean ran = controller.runRound();
             prgList = controller.removeCompletedPrg(controller.getRepo().getProgramList());
-            synchronized (controller.getRepo()) {
-                // Garbage collector
-                MyIHeap<Integer, Value> heap = controller.getRepo().getProgramList().get(0).getHeap();
-                heap = controller.conservativeGarbageCollector(controller.getRepo().getProgramList(), heap);
-                for (PrgState prg: controller.getRepo().getProgramList()) { prg.setHeap(heap); }
-            }
-            controller.oneStepForAllPrg(prgList);
-            prgList = controller.removeCompletedPrg(controller.getRepo().getProgramList());
 
             updateUIComponents();
+            return ran;
+        } catch (Exception e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setContentText(e.getMessage());
+            alert.showAndWait();
+            return false;
+        }
+    }
+
+    // Step back and jump: restores the closest checkpoint and runs the steps after it again
+    private void travel(int step) {
+        try {
+            // the pool was shut down when the run completed, the rounds run again need one
+            if (controller.executor.isShutdown()) controller.startExecutor(2);
+            controller.goToStep(step);
+            updateUIComponents();
         } catch (Exception e) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Error");
@@ -214,9 +272,33 @@ public class MainProgramView {
         }
     }
 
+    // Saves the run to a file picked by the user and goes back to the program selection,
+    // the run goes on from there with Resume Suspended Run
+    private void suspend(Stage mainStage) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Suspend Run");
+        chooser.setInitialFileName("run.snapshot");
+        File file = chooser.showSaveDialog(mainStage);
+        if (file == null) return;
+        try {
+            controller.suspend(file.getPath());
+        } catch (MyException e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setContentText(e.getMessage());
+            alert.showAndWait();
+            return;
+        }
+        controller.shutdown();
+        mainStage.close();
+        showProgramSelection();
+    }
+
     private void updateUIComponents() {
         // Update number of program states
         prgStatesCount.setText(String.valueOf(controller.getRepo().getProgramList().size()));
+        stepField.setText(String.valueOf(controller.getCheckpoints().getStep()));
+        checkpointInfo.setText(" " + controller.getCheckpoints());
 
         // Get current program state
         MyIList<PrgState> programStates = controller.getRepo().getProgramList();
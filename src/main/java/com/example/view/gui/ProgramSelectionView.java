@@ -4,7 +4,9 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.geometry.Insets;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import java.io.File;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -12,6 +14,7 @@ public class ProgramSelectionView {
     private Stage stage;
     private ListView<String> programList;
     private Button selectButton;
+    private Button resumeButton;
 
     public ProgramSelectionView() {
         stage = new Stage();
@@ -31,11 +34,14 @@ public class ProgramSelectionView {
         selectButton = new Button("Select Program");
         selectButton.setStyle("-fx-font-size: 14px; -fx-background-color: #4CAF50; -fx-text-fill: white;");
 
+        resumeButton = new Button("Resume Suspended Run");
+        resumeButton.setStyle("-fx-font-size: 14px;");
+
         VBox centerBox = new VBox(15, titleLabel, programList);
         centerBox.setPadding(new Insets(10));
         root.setCenter(centerBox);
 
-        HBox bottomBox = new HBox(selectButton);
+        HBox bottomBox = new HBox(10, selectButton, resumeButton);
         bottomBox.setPadding(new Insets(10));
         bottomBox.setStyle("-fx-alignment: center;");
         root.setBottom(bottomBox);
@@ -62,4 +68,17 @@ public class ProgramSelectionView {
             }
         });
     }
-}
\ No newline at end of file
+
+    // handler gets the path of the snapshot file picked by the user
+    public void setOnResume(Consumer<String> handler) {
+        resumeButton.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Resume Suspended Run");
+            File file = chooser.showOpenDialog(stage);
+            if (file != null) {
+                stage.close();
+                handler.accept(file.getPath());
+            }
+        });
+    }
+}